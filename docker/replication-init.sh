@@ -0,0 +1,12 @@
+#!/bin/sh
+# Runs once when the primary database is initialised: lets db-replica stream WAL from it.
+# The replicator role's password comes from REPLICATION_PASSWORD.
+set -e
+: "${REPLICATION_PASSWORD:?REPLICATION_PASSWORD is not set}"
+
+psql -v ON_ERROR_STOP=1 -v password="$REPLICATION_PASSWORD" --username "$POSTGRES_USER" --dbname "$POSTGRES_DB" <<-SQL
+    CREATE ROLE replicator WITH REPLICATION LOGIN PASSWORD :'password';
+    SELECT pg_create_physical_replication_slot('replica_slot');
+SQL
+
+echo "host replication replicator all scram-sha-256" >> "$PGDATA/pg_hba.conf"
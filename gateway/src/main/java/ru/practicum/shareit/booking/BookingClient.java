@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -9,55 +10,89 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.client.AsyncServerClient;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         HttpComponentsClientHttpRequestFactory shareItServerRequestFactory,
+                         ObjectProvider<AsyncServerClient> asyncServerClient,
+                         ResponseCache responseCache) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> shareItServerRequestFactory)
+                        .build(),
+                asyncServerClient.getIfAvailable(),
+                responseCache
         );
     }
 
-    public ResponseEntity<Object> getBookings(Integer userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+    public CompletableFuture<ResponseEntity<Object>> getBookings(Integer userId, BookingState state, Integer from, Integer size,
+                                              String cursor) {
+        return get(withCursor("?state={state}&from={from}&size={size}", cursor), userId,
+                listParameters(state, from, size, cursor));
     }
 
-    public ResponseEntity<Object> getBookingsOwner(Integer userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+    public CompletableFuture<ResponseEntity<Object>> getBookingsOwner(Integer userId, BookingState state, Integer from, Integer size,
+                                                   String cursor) {
+        return get(withCursor("/owner?state={state}&from={from}&size={size}", cursor), userId,
+                listParameters(state, from, size, cursor));
     }
 
-    public ResponseEntity<Object> getBooking(Integer userId, Integer bookingId) {
+    public CompletableFuture<ResponseEntity<Object>> getBooking(Integer userId, Integer bookingId) {
 
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> create(Integer userId, BookItemRequestDto requestDto) {
+    public CompletableFuture<ResponseEntity<Object>> create(Integer userId, BookItemRequestDto requestDto) {
 
-        return post("", userId, requestDto);
+        return invalidating(post("", userId, requestDto), ResponseCache.ITEMS);
     }
 
-    public ResponseEntity<Object> update(Integer bookingId, Integer userId, Boolean approved) {
+    public CompletableFuture<ResponseEntity<Object>> createBatch(Integer userId, List<BookItemRequestDto> requestDtos) {
+
+        return invalidating(post("/batch", userId, requestDtos), ResponseCache.ITEMS);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> update(Integer bookingId, Integer userId, Boolean approved) {
         String path = "/" + bookingId + "?approved=" + approved;
 
-        return patch(path, userId, null, null);
+        return invalidating(patch(path, userId, null, null), ResponseCache.ITEMS);
+    }
+
+    public void exportBookings(Integer userId, String format, HttpServletResponse response) throws IOException {
+        stream("/export?format={format}", userId, Map.of("format", format), response);
+    }
+
+    public void exportBookingsOwner(Integer userId, String format, HttpServletResponse response) throws IOException {
+        stream("/owner/export?format={format}", userId, Map.of("format", format), response);
+    }
+
+    private static String withCursor(String path, String cursor) {
+        return cursor != null ? path + "&cursor={cursor}" : path;
+    }
+
+    private static Map<String, Object> listParameters(BookingState state, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("state", state.name());
+        parameters.put("from", from);
+        parameters.put("size", size);
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+        }
+        return parameters;
     }
 }
@@ -10,9 +10,16 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -21,56 +28,115 @@ import javax.validation.constraints.PositiveOrZero;
 @Validated
 public class BookingController {
     private static final String USER_ID = "X-Sharer-User-Id";
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final Set<String> EXPORT_FORMATS = Set.of("ndjson", "csv");
     private final BookingClient bookingClient;
+    private final Validator validator;
 
     @GetMapping
-    public ResponseEntity<Object> getBookings(@RequestHeader(USER_ID) Integer userId,
-                                              @RequestParam(name = "state", defaultValue = "all") String stateParam,
-                                              @PositiveOrZero @RequestParam(name = "from", defaultValue = "0")
-                                              Integer from,
-                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> getBookings(@RequestHeader(USER_ID) Integer userId,
+                                                                 @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                                 @PositiveOrZero @RequestParam(name = "from", defaultValue = "0")
+                                                                 Integer from,
+                                                                 @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                                 @RequestParam(name = "cursor", required = false) String cursor) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
-        log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getBookings(userId, state, from, size);
+        log.info("Get booking with state {}, userId={}, from={}, size={}, cursor={}",
+                stateParam, userId, from, size, cursor);
+        return bookingClient.getBookings(userId, state, from, size, cursor);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> getBookingsOwner(@RequestParam(name = "state", defaultValue = "all") String stateParam,
-                                                   @RequestHeader(USER_ID) Integer userId,
-                                                   @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                   @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> getBookingsOwner(@RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                                      @RequestHeader(USER_ID) Integer userId,
+                                                                      @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                                      @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                                      @RequestParam(name = "cursor", required = false) String cursor) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
         log.info("Получен GET-запрос к эндпоинту: '/bookings/owner' на получение " +
                 "списка всех бронирований вещей пользователя с ID={} с параметром STATE={}", userId, state);
-        return bookingClient.getBookingsOwner(userId, state, from, size);
+        return bookingClient.getBookingsOwner(userId, state, from, size, cursor);
     }
 
 
+    /**
+     * Streams the whole booking history of the user as NDJSON or CSV, passed through from the server as it
+     * arrives.
+     */
+    @GetMapping("/export")
+    public void exportBookings(@RequestHeader(USER_ID) Integer userId,
+                               @RequestParam(name = "format", defaultValue = "ndjson") String format,
+                               HttpServletResponse response) throws IOException {
+        checkExportFormat(format);
+        log.info("Export bookings, userId={}, format={}", userId, format);
+        bookingClient.exportBookings(userId, format, response);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportBookingsOwner(@RequestHeader(USER_ID) Integer userId,
+                                    @RequestParam(name = "format", defaultValue = "ndjson") String format,
+                                    HttpServletResponse response) throws IOException {
+        checkExportFormat(format);
+        log.info("Export bookings of owner items, userId={}, format={}", userId, format);
+        bookingClient.exportBookingsOwner(userId, format, response);
+    }
+
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBooking(@RequestHeader(USER_ID) Integer userId,
-                                             @PathVariable Integer bookingId) {
+    public CompletableFuture<ResponseEntity<Object>> getBooking(@RequestHeader(USER_ID) Integer userId,
+                                                                @PathVariable Integer bookingId) {
         log.info("Get booking {}, userId={}", bookingId, userId);
 
         return bookingClient.getBooking(userId, bookingId);
     }
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestHeader(USER_ID) Integer userId,
-                                         @RequestBody @Valid BookItemRequestDto requestDto) {
+    public CompletableFuture<ResponseEntity<Object>> create(@RequestHeader(USER_ID) Integer userId,
+                                                            @RequestBody @Valid BookItemRequestDto requestDto) {
         log.info("Creating booking {}, userId={}", requestDto, userId);
         return bookingClient.create(userId, requestDto);
     }
 
+    /**
+     * Every entry is checked against the same constraints as {@code POST /bookings}, and a malformed entry fails
+     * the whole batch with 400. Entries that the server rejects (unknown item, owner's item, booked period) get
+     * their own result and do not fail the others.
+     */
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<Object>> createBatch(@RequestHeader(USER_ID) Integer userId,
+                                                                 @RequestBody List<BookItemRequestDto> requestDtos) {
+        if (requestDtos.isEmpty() || requestDtos.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch must contain from 1 to " + MAX_BATCH_SIZE + " bookings");
+        }
+        for (int i = 0; i < requestDtos.size(); i++) {
+            BookItemRequestDto requestDto = requestDtos.get(i);
+            if (requestDto == null) {
+                throw new IllegalArgumentException("bookings[" + i + "] must not be null");
+            }
+            for (ConstraintViolation<BookItemRequestDto> violation : validator.validate(requestDto)) {
+                throw new IllegalArgumentException("bookings[" + i + "]." + violation.getPropertyPath() + " " +
+                        violation.getMessage());
+            }
+        }
+        log.info("Creating {} bookings, userId={}", requestDtos.size(), userId);
+        return bookingClient.createBatch(userId, requestDtos);
+    }
+
     @ResponseBody
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> update(@PathVariable Integer bookingId,
-                                         @RequestHeader(USER_ID) Integer userId,
-                                         @RequestParam Boolean approved) {
+    public CompletableFuture<ResponseEntity<Object>> update(@PathVariable Integer bookingId,
+                                                            @RequestHeader(USER_ID) Integer userId,
+                                                            @RequestParam Boolean approved) {
         log.info("Получен PATCH-запрос к эндпоинту: '/bookings' на обновление статуса бронирования с ID={}",
                 bookingId);
 
         return bookingClient.update(bookingId, userId, approved);
     }
+
+    private static void checkExportFormat(String format) {
+        if (!EXPORT_FORMATS.contains(format.toLowerCase())) {
+            throw new IllegalArgumentException("Unknown export format: " + format);
+        }
+    }
 }
@@ -0,0 +1,104 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.util.EntityUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking transport for {@link BaseClient}, enabled with {@code shareit-server.client.mode=async}.
+ * Requests go through the async Apache client of {@link HttpClientConfig}, so no thread waits for the ShareIt
+ * server: the controller returns a {@link CompletableFuture} and the response is written when it completes.
+ * Its pool takes the limits and timeouts of the blocking mode and reports the same pool metrics, tagged
+ * {@code httpclient=shareit-server-async}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit-server.client.mode", havingValue = "async")
+public class AsyncServerClient {
+    private static final Set<String> SKIPPED_REQUEST_HEADERS = Set.of(
+            "connection", "content-length", "host", "transfer-encoding", "upgrade");
+
+    private final CloseableHttpAsyncClient httpClient;
+    private final ObjectMapper objectMapper;
+
+    public AsyncServerClient(CloseableHttpAsyncClient shareItServerAsyncHttpClient, ObjectMapper objectMapper) {
+        this.httpClient = shareItServerAsyncHttpClient;
+        this.objectMapper = objectMapper;
+        log.info("Gateway sends requests to ShareIt server without blocking");
+    }
+
+    CompletableFuture<ResponseEntity<Object>> exchange(HttpMethod method, URI uri, HttpHeaders headers,
+                                                       @Nullable Object body) {
+        RequestBuilder request = RequestBuilder.create(method.name()).setUri(uri);
+        headers.forEach((name, values) -> {
+            if (!SKIPPED_REQUEST_HEADERS.contains(name.toLowerCase())) {
+                values.forEach(value -> request.addHeader(name, value));
+            }
+        });
+        if (body != null) {
+            request.setEntity(new ByteArrayEntity(toJson(body)));
+        }
+
+        CompletableFuture<ResponseEntity<Object>> response = new CompletableFuture<>();
+        httpClient.execute(request.build(), new FutureCallback<>() {
+            @Override
+            public void completed(HttpResponse result) {
+                try {
+                    response.complete(toResponseEntity(result));
+                } catch (IOException | RuntimeException e) {
+                    response.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                response.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                response.cancel(false);
+            }
+        });
+        return response;
+    }
+
+    private byte[] toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ResponseEntity<Object> toResponseEntity(HttpResponse response) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        for (Header header : response.getAllHeaders()) {
+            headers.add(header.getName(), header.getValue());
+        }
+        HttpEntity entity = response.getEntity();
+        byte[] body = entity == null ? new byte[0] : EntityUtils.toByteArray(entity);
+        return BaseClient.prepareGatewayResponse(HttpStatus.valueOf(response.getStatusLine().getStatusCode()),
+                headers, body);
+    }
+}
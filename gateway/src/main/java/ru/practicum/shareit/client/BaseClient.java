@@ -1,98 +1,196 @@
 package ru.practicum.shareit.client;
 
+import java.io.IOException;
+import java.net.URI;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 public class BaseClient {
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            "connection", "content-length", "keep-alive", "transfer-encoding", "upgrade");
+    private static final List<String> CONDITIONAL_HEADERS = List.of(HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MATCH,
+            HttpHeaders.IF_MODIFIED_SINCE, HttpHeaders.IF_UNMODIFIED_SINCE);
+
     protected final RestTemplate rest;
+    @Nullable
+    private final AsyncServerClient asyncClient;
+    @Nullable
+    private final ResponseCache responseCache;
 
     public BaseClient(RestTemplate rest) {
+        this(rest, null, null);
+    }
+
+    public BaseClient(RestTemplate rest, @Nullable AsyncServerClient asyncClient,
+                      @Nullable ResponseCache responseCache) {
         this.rest = rest;
+        this.asyncClient = asyncClient;
+        this.responseCache = responseCache;
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, int userId) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, int userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Integer userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, Integer userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected CompletableFuture<ResponseEntity<Object>> cachedGet(String region, String path, Integer userId,
+                                                                  @Nullable Map<String, Object> parameters) {
+        if (responseCache == null) {
+            return get(path, userId, parameters);
+        }
+        URI uri = parameters != null
+                ? rest.getUriTemplateHandler().expand(path, parameters)
+                : rest.getUriTemplateHandler().expand(path);
+        String ifNoneMatch = conditionalHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+        return responseCache.get(region, uri + " " + userId,
+                        () -> send(HttpMethod.GET, path, parameters, null, defaultHeaders(userId)))
+                .thenApply(response -> notModifiedIfMatches(response, ifNoneMatch));
+    }
+
+    protected CompletableFuture<ResponseEntity<Object>> invalidating(CompletableFuture<ResponseEntity<Object>> response,
+                                                                     String... regions) {
+        if (responseCache == null) {
+            return response;
+        }
+        return response.whenComplete((result, e) -> responseCache.invalidate(regions));
+    }
+
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, int userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, int userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, int userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, int userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, int userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, int userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, int userId) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, int userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, int userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, int userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, int userId) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, int userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Integer userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, Integer userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Integer userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+    /**
+     * Copies a GET response of the ShareIt server to {@code response} while it is being received. Unlike the
+     * other requests the body is never held in memory, so it suits exports of any size. Runs on the calling
+     * thread, which is blocked until the server finishes.
+     */
+    protected void stream(String path, Integer userId, @Nullable Map<String, Object> parameters,
+                          HttpServletResponse response) throws IOException {
+        HttpHeaders headers = defaultHeaders(userId);
+        headers.setAccept(List.of(MediaType.ALL));
+        RequestCallback requestCallback = request -> request.getHeaders().addAll(headers);
+        ResponseExtractor<Void> responseExtractor = serverResponse -> {
+            copyResponse(serverResponse.getStatusCode(), serverResponse.getHeaders(), response);
+            StreamUtils.copy(serverResponse.getBody(), response.getOutputStream());
+            return null;
+        };
+        try {
+            if (parameters != null) {
+                rest.execute(path, HttpMethod.GET, requestCallback, responseExtractor, parameters);
+            } else {
+                rest.execute(path, HttpMethod.GET, requestCallback, responseExtractor);
+            }
+        } catch (HttpStatusCodeException e) {
+            copyResponse(e.getStatusCode(), e.getResponseHeaders(), response);
+            response.getOutputStream().write(e.getResponseBodyAsByteArray());
+        }
+        response.flushBuffer();
+    }
+
+    private <T> CompletableFuture<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Integer userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        HttpHeaders headers = defaultHeaders(userId);
+        headers.addAll(conditionalHeaders());
+        return send(method, path, parameters, body, headers);
+    }
+
+    private <T> CompletableFuture<ResponseEntity<Object>> send(HttpMethod method, String path, @Nullable Map<String, Object> parameters, @Nullable T body, HttpHeaders headers) {
+        if (asyncClient != null) {
+            URI uri = parameters != null
+                    ? rest.getUriTemplateHandler().expand(path, parameters)
+                    : rest.getUriTemplateHandler().expand(path);
+            return asyncClient.exchange(method, uri, headers, body);
+        }
+        return CompletableFuture.completedFuture(exchange(method, path, parameters, body, headers));
+    }
+
+    private <T> ResponseEntity<Object> exchange(HttpMethod method, String path, @Nullable Map<String, Object> parameters, @Nullable T body, HttpHeaders headers) {
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, headers);
 
-        ResponseEntity<Object> shareitServerResponse;
+        ResponseEntity<byte[]> shareitServerResponse;
         try {
             if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class, parameters);
             } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class);
             }
         } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            return prepareGatewayResponse(e.getStatusCode(), e.getResponseHeaders(), e.getResponseBodyAsByteArray());
         }
-        return prepareGatewayResponse(shareitServerResponse);
+        return prepareGatewayResponse(shareitServerResponse.getStatusCode(), shareitServerResponse.getHeaders(),
+                shareitServerResponse.getBody());
     }
 
     private HttpHeaders defaultHeaders(Integer userId) {
@@ -105,17 +203,75 @@ public class BaseClient {
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
+    /**
+     * Conditional headers of the incoming request, forwarded so the server can answer 304 Not Modified.
+     */
+    private static HttpHeaders conditionalHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+            for (String name : CONDITIONAL_HEADERS) {
+                Enumeration<String> values = request.getHeaders(name);
+                while (values.hasMoreElements()) {
+                    headers.add(name, values.nextElement());
+                }
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Cached responses are loaded without conditional headers, so the If-None-Match check is repeated here.
+     */
+    private static ResponseEntity<Object> notModifiedIfMatches(ResponseEntity<Object> response,
+                                                               @Nullable String ifNoneMatch) {
+        String eTag = response.getHeaders().getETag();
+        if (ifNoneMatch == null || eTag == null || response.getStatusCode() != HttpStatus.OK) {
             return response;
         }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeak(tag).equals(stripWeak(eTag))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+        return response;
+    }
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+    private static String stripWeak(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
 
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+    private static void copyResponse(HttpStatus status, @Nullable HttpHeaders serverHeaders,
+                                     HttpServletResponse response) {
+        response.setStatus(status.value());
+        if (serverHeaders != null) {
+            serverHeaders.forEach((name, values) -> {
+                if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+                    values.forEach(value -> response.addHeader(name, value));
+                }
+            });
         }
+    }
 
-        return responseBuilder.build();
+    /**
+     * Passes the ShareIt server response through unchanged: the JSON body stays raw bytes, so it is neither
+     * parsed into a Jackson tree nor serialized again by the gateway.
+     */
+    static ResponseEntity<Object> prepareGatewayResponse(HttpStatus status, @Nullable HttpHeaders serverHeaders,
+                                                         @Nullable byte[] body) {
+        HttpHeaders headers = new HttpHeaders();
+        if (serverHeaders != null) {
+            serverHeaders.forEach((name, values) -> {
+                if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+                    headers.addAll(name, values);
+                }
+            });
+        }
+        if (body == null || body.length == 0) {
+            return new ResponseEntity<>(headers, status);
+        }
+        return new ResponseEntity<>(body, headers, status);
     }
 }
@@ -0,0 +1,138 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One pooled HTTP client for all calls from the gateway to the ShareIt server.
+ * Every {@link BaseClient} subclass builds its RestTemplate on the request factory declared here.
+ * In the async mode {@link AsyncServerClient} sends the calls through a non-blocking client whose pool takes
+ * the same {@code shareit-server.http.*} limits and timeouts and reports the same metrics.
+ */
+@Configuration
+public class HttpClientConfig {
+    private static final String POOL_NAME = "shareit-server";
+    private static final String ASYNC_POOL_NAME = "shareit-server-async";
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager shareItServerConnectionManager(
+            MeterRegistry meterRegistry,
+            @Value("${shareit-server.http.max-total:200}") int maxTotal,
+            @Value("${shareit-server.http.max-per-route:200}") int maxPerRoute,
+            @Value("${shareit-server.http.time-to-live:300000}") long timeToLive) {
+        PoolingHttpClientConnectionManager connectionManager =
+                new TimedConnectionManager(timeToLive, leaseTimer(meterRegistry, POOL_NAME));
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity(2000);
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME).bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient shareItServerHttpClient(
+            PoolingHttpClientConnectionManager shareItServerConnectionManager,
+            @Value("${shareit-server.http.connect-timeout:2000}") int connectTimeout,
+            @Value("${shareit-server.http.read-timeout:30000}") int readTimeout,
+            @Value("${shareit-server.http.connection-request-timeout:5000}") int connectionRequestTimeout,
+            @Value("${shareit-server.http.keep-alive:60000}") long keepAlive) {
+        return HttpClients.custom()
+                .setConnectionManager(shareItServerConnectionManager)
+                .setDefaultRequestConfig(requestConfig(connectTimeout, readTimeout, connectionRequestTimeout))
+                .setKeepAliveStrategy(keepAliveStrategy(keepAlive))
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    public HttpComponentsClientHttpRequestFactory shareItServerRequestFactory(
+            CloseableHttpClient shareItServerHttpClient) {
+        return new HttpComponentsClientHttpRequestFactory(shareItServerHttpClient);
+    }
+
+    /**
+     * Pool of the async mode. Its I/O dispatch threads ({@code shareit-server.client.async-threads}) serve every
+     * open connection, so no thread waits for a response. Its metrics carry {@code httpclient=shareit-server-async},
+     * since the blocking pool stays in use for streamed exports.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "shareit-server.client.mode", havingValue = "async")
+    public PoolingNHttpClientConnectionManager shareItServerAsyncConnectionManager(
+            MeterRegistry meterRegistry,
+            @Value("${shareit-server.client.async-threads:4}") int ioThreads,
+            @Value("${shareit-server.http.max-total:200}") int maxTotal,
+            @Value("${shareit-server.http.max-per-route:200}") int maxPerRoute,
+            @Value("${shareit-server.http.time-to-live:300000}") long timeToLive,
+            @Value("${shareit-server.http.connect-timeout:2000}") int connectTimeout,
+            @Value("${shareit-server.http.read-timeout:30000}") int readTimeout) throws IOReactorException {
+        DefaultConnectingIOReactor ioReactor = new DefaultConnectingIOReactor(IOReactorConfig.custom()
+                .setIoThreadCount(ioThreads)
+                .setConnectTimeout(connectTimeout)
+                .setSoTimeout(readTimeout)
+                .build());
+        PoolingNHttpClientConnectionManager connectionManager =
+                new TimedAsyncConnectionManager(ioReactor, timeToLive, leaseTimer(meterRegistry, ASYNC_POOL_NAME));
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, ASYNC_POOL_NAME).bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "shareit-server.client.mode", havingValue = "async")
+    public CloseableHttpAsyncClient shareItServerAsyncHttpClient(
+            PoolingNHttpClientConnectionManager shareItServerAsyncConnectionManager,
+            @Value("${shareit-server.http.connect-timeout:2000}") int connectTimeout,
+            @Value("${shareit-server.http.read-timeout:30000}") int readTimeout,
+            @Value("${shareit-server.http.connection-request-timeout:5000}") int connectionRequestTimeout,
+            @Value("${shareit-server.http.keep-alive:60000}") long keepAlive) {
+        return HttpAsyncClients.custom()
+                .setConnectionManager(shareItServerAsyncConnectionManager)
+                .setDefaultRequestConfig(requestConfig(connectTimeout, readTimeout, connectionRequestTimeout))
+                .setKeepAliveStrategy(keepAliveStrategy(keepAlive))
+                .build();
+    }
+
+    private static Timer leaseTimer(MeterRegistry meterRegistry, String poolName) {
+        return Timer.builder("httpcomponents.httpclient.pool.lease")
+                .description("Time spent waiting for a connection from the pool")
+                .tag("httpclient", poolName)
+                .register(meterRegistry);
+    }
+
+    private static RequestConfig requestConfig(int connectTimeout, int readTimeout, int connectionRequestTimeout) {
+        return RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .setConnectionRequestTimeout(connectionRequestTimeout)
+                .build();
+    }
+
+    private static ConnectionKeepAliveStrategy keepAliveStrategy(long keepAlive) {
+        return (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive) : keepAlive;
+        };
+    }
+}
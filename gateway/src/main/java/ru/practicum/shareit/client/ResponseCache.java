@@ -0,0 +1,96 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Bounded Caffeine cache of successful GET responses from the ShareIt server.
+ * Entries live at most {@code shareit-gateway.cache.ttl} milliseconds and are grouped by region
+ * (the client's API prefix), so a write through one client drops every cached view it can affect.
+ */
+@Component
+public class ResponseCache {
+    public static final String ITEMS = "/items";
+    public static final String REQUESTS = "/requests";
+    static final String CACHE_NAME = "gateway-responses";
+
+    private final boolean enabled;
+    private final Cache<String, ResponseEntity<Object>> entries;
+    private long generation;
+
+    public ResponseCache(MeterRegistry meterRegistry,
+                         @Value("${shareit-gateway.cache.enabled:true}") boolean enabled,
+                         @Value("${shareit-gateway.cache.ttl:5000}") long ttl,
+                         @Value("${shareit-gateway.cache.max-entries:10000}") int maxEntries) {
+        this.enabled = enabled;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttl))
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, CACHE_NAME);
+        Gauge.builder("cache.hit.ratio", entries, cache -> cache.stats().hitRate())
+                .tag("cache", CACHE_NAME)
+                .description("Share of gateway GETs answered from the cache")
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> get(String region, String key,
+                                                         Supplier<CompletableFuture<ResponseEntity<Object>>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String regionKey = region + " " + key;
+        long loadGeneration;
+        synchronized (this) {
+            ResponseEntity<Object> response = entries.getIfPresent(regionKey);
+            if (response != null) {
+                return CompletableFuture.completedFuture(response);
+            }
+            loadGeneration = generation;
+        }
+        return loader.get().thenApply(response -> {
+            if (response.getStatusCode() == HttpStatus.OK) {
+                put(regionKey, response, loadGeneration);
+            }
+            return response;
+        });
+    }
+
+    /**
+     * Drops every cached response in the given regions. Loads that started before the call are not stored,
+     * so a read racing with a write cannot put the old state back.
+     */
+    public synchronized void invalidate(String... regions) {
+        if (!enabled) {
+            return;
+        }
+        generation++;
+        entries.asMap().keySet().removeIf(key -> {
+            for (String region : regions) {
+                if (key.startsWith(region + " ")) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private synchronized void put(String regionKey, ResponseEntity<Object> response, long loadGeneration) {
+        if (loadGeneration == generation) {
+            entries.put(regionKey, response);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Timer;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.apache.http.impl.nio.conn.ManagedNHttpClientConnectionFactory;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.ConnectingIOReactor;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking connection pool that records how long each request waits to lease a connection,
+ * the counterpart of {@link TimedConnectionManager} for the async mode.
+ */
+class TimedAsyncConnectionManager extends PoolingNHttpClientConnectionManager {
+    private final Timer leaseTimer;
+
+    TimedAsyncConnectionManager(ConnectingIOReactor ioReactor, long timeToLive, Timer leaseTimer) {
+        super(ioReactor, ManagedNHttpClientConnectionFactory.INSTANCE,
+                RegistryBuilder.<SchemeIOSessionStrategy>create()
+                        .register("http", NoopIOSessionStrategy.INSTANCE)
+                        .register("https", SSLIOSessionStrategy.getDefaultStrategy())
+                        .build(),
+                DefaultSchemePortResolver.INSTANCE, SystemDefaultDnsResolver.INSTANCE,
+                timeToLive, TimeUnit.MILLISECONDS);
+        this.leaseTimer = leaseTimer;
+    }
+
+    @Override
+    public Future<NHttpClientConnection> requestConnection(HttpRoute route, Object state, long connectTimeout,
+                                                           long leaseTimeout, TimeUnit timeUnit,
+                                                           FutureCallback<NHttpClientConnection> callback) {
+        long startNanos = System.nanoTime();
+        return super.requestConnection(route, state, connectTimeout, leaseTimeout, timeUnit,
+                new FutureCallback<>() {
+                    @Override
+                    public void completed(NHttpClientConnection connection) {
+                        record();
+                        if (callback != null) {
+                            callback.completed(connection);
+                        }
+                    }
+
+                    @Override
+                    public void failed(Exception e) {
+                        record();
+                        if (callback != null) {
+                            callback.failed(e);
+                        }
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        record();
+                        if (callback != null) {
+                            callback.cancelled();
+                        }
+                    }
+
+                    private void record() {
+                        leaseTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                    }
+                });
+    }
+}
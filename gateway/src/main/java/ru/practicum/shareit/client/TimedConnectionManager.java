@@ -0,0 +1,45 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Timer;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pool that records how long each request waits to lease a connection.
+ */
+class TimedConnectionManager extends PoolingHttpClientConnectionManager {
+    private final Timer leaseTimer;
+
+    TimedConnectionManager(long timeToLive, Timer leaseTimer) {
+        super(timeToLive, TimeUnit.MILLISECONDS);
+        this.leaseTimer = leaseTimer;
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        ConnectionRequest request = super.requestConnection(route, state);
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                long startNanos = System.nanoTime();
+                try {
+                    return request.get(timeout, timeUnit);
+                } finally {
+                    leaseTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+}
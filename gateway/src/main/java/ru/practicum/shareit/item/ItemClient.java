@@ -1,6 +1,7 @@
 package ru.practicum.shareit.item;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -8,11 +9,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.client.AsyncServerClient;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
@@ -20,26 +25,41 @@ public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      HttpComponentsClientHttpRequestFactory shareItServerRequestFactory,
+                      ObjectProvider<AsyncServerClient> asyncServerClient,
+                      ResponseCache responseCache) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> shareItServerRequestFactory)
+                        .build(),
+                asyncServerClient.getIfAvailable(),
+                responseCache
         );
     }
 
-    public ResponseEntity<Object> create(Integer userId, ItemDto itemDto) {
+    public CompletableFuture<ResponseEntity<Object>> create(Integer userId, ItemDto itemDto) {
 
-        return post("", userId, itemDto);
+        return invalidating(post("", userId, itemDto), ResponseCache.ITEMS, ResponseCache.REQUESTS);
     }
 
-    public ResponseEntity<Object> getItemById(Integer userId, Integer itemId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemById(Integer userId, Integer itemId) {
 
-        return get("/" + itemId, userId);
+        return cachedGet(ResponseCache.ITEMS, "/" + itemId, userId, null);
     }
 
-    public ResponseEntity<Object> getItemsByOwner(Integer userId, Integer from, Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> getAvailability(Integer userId, Integer itemId,
+                                                                     LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
+        );
+
+        return cachedGet(ResponseCache.ITEMS, "/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> getItemsByOwner(Integer userId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -48,24 +68,26 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> update(ItemDto itemDto, Integer itemId, Integer userId) {
-        return patch("/" + itemId.longValue(), userId, itemDto);
+    public CompletableFuture<ResponseEntity<Object>> update(ItemDto itemDto, Integer itemId, Integer userId) {
+        return invalidating(patch("/" + itemId.longValue(), userId, itemDto),
+                ResponseCache.ITEMS, ResponseCache.REQUESTS);
     }
 
-    public ResponseEntity<Object> delete(Integer itemId, Integer userId) {
-        return delete("/" + itemId, userId);
+    public CompletableFuture<ResponseEntity<Object>> delete(Integer itemId, Integer userId) {
+        return invalidating(delete("/" + itemId, userId), ResponseCache.ITEMS, ResponseCache.REQUESTS);
     }
 
-    public ResponseEntity<Object> getItemsBySearchQuery(String text, Integer from, Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> getItemsBySearchQuery(String text, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
                 "size", size
         );
-        return get("/search?text={text}&from={from}&size={size}", null, parameters);
+        return cachedGet(ResponseCache.ITEMS, "/search?text={text}&from={from}&size={size}", null, parameters);
     }
 
-    public ResponseEntity<Object> createComment(CommentDto commentDto, Integer itemId, Integer userId) {
-        return post("/" + itemId + "/comment", userId, commentDto);
+    public CompletableFuture<ResponseEntity<Object>> createComment(CommentDto commentDto, Integer itemId, Integer userId) {
+        return invalidating(post("/" + itemId + "/comment", userId, commentDto), ResponseCache.ITEMS,
+                ResponseCache.REQUESTS);
     }
 }
\ No newline at end of file
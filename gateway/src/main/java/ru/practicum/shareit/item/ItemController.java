@@ -2,6 +2,7 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
@@ -12,6 +13,8 @@ import ru.practicum.shareit.item.dto.ItemDto;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 @RequestMapping(path = "/items")
@@ -24,57 +27,69 @@ public class ItemController {
 
 
     @GetMapping
-    public ResponseEntity<Object> getItemsByOwner(@RequestHeader(owner) Integer ownerId,
-                                                  @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                  @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> getItemsByOwner(@RequestHeader(owner) Integer ownerId,
+                                                                     @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                                     @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
         log.info("Получен GET-запрос к эндпоинту: '/items' на получение всех вещей владельца с ID={}", ownerId);
         return itemClient.getItemsByOwner(ownerId, from, size);
     }
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestHeader(owner) Integer userId,
-                                         @RequestBody @Valid ItemDto itemDto) {
+    public CompletableFuture<ResponseEntity<Object>> create(@RequestHeader(owner) Integer userId,
+                                                            @RequestBody @Valid ItemDto itemDto) {
         log.info("Создание вещи {}, userId={}", itemDto, userId);
         return itemClient.create(userId, itemDto);
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItemById(@RequestHeader(owner) Integer userId,
-                                              @PathVariable Integer itemId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemById(@RequestHeader(owner) Integer userId,
+                                                                 @PathVariable Integer itemId) {
         log.info("Запрос вещи {}, userId={}", itemId, userId);
-
-        log.info("userId = " + userId);
-        log.info("itemId = " + itemId);
         return itemClient.getItemById(userId, itemId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public CompletableFuture<ResponseEntity<Object>> getAvailability(@RequestHeader(owner) Integer userId,
+                                                                     @PathVariable Integer itemId,
+                                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                                     LocalDateTime from,
+                                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                                     LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from=" + from + " must be before to=" + to);
+        }
+        log.info("Получен GET-запрос к эндпоинту: '/items/{}/availability' с {} по {}, userId={}",
+                itemId, from, to, userId);
+        return itemClient.getAvailability(userId, itemId, from, to);
+    }
+
     @ResponseBody
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> update(@RequestBody ItemDto itemDto, @PathVariable Integer itemId,
-                                         @RequestHeader(owner) Integer userId) {
+    public CompletableFuture<ResponseEntity<Object>> update(@RequestBody ItemDto itemDto, @PathVariable Integer itemId,
+                                                            @RequestHeader(owner) Integer userId) {
         log.info("Получен PATCH-запрос к эндпоинту: '/items' на обновление вещи с ID={}", itemId);
         return itemClient.update(itemDto, itemId, userId);
     }
 
     @DeleteMapping("/{itemId}")
-    public ResponseEntity<Object> delete(@PathVariable Integer itemId, @RequestHeader(owner) Integer ownerId) {
+    public CompletableFuture<ResponseEntity<Object>> delete(@PathVariable Integer itemId, @RequestHeader(owner) Integer ownerId) {
         log.info("Получен DELETE-запрос к эндпоинту: '/items' на удаление вещи с ID={}", itemId);
         return itemClient.delete(itemId, ownerId);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> getItemsBySearchQuery(@RequestParam String text,
-                                                        @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                        @Positive @RequestParam(name = "size",defaultValue = "10") Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> getItemsBySearchQuery(@RequestParam String text,
+                                                                           @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                                           @Positive @RequestParam(name = "size",defaultValue = "10") Integer size) {
         log.info("Получен GET-запрос к эндпоинту: '/items/search' на поиск вещи с текстом={}", text);
         return itemClient.getItemsBySearchQuery(text, from, size);
     }
 
     @ResponseBody
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> createComment(@RequestBody @Valid CommentDto commentDto,
-                                                @RequestHeader(owner) Integer userId,
-                                                @PathVariable Integer itemId) {
+    public CompletableFuture<ResponseEntity<Object>> createComment(@RequestBody @Valid CommentDto commentDto,
+                                                                   @RequestHeader(owner) Integer userId,
+                                                                   @PathVariable Integer itemId) {
         log.info("Получен POST-запрос к эндпоинту: '/items/comment' на" +
                 " добавление отзыва пользователем с ID={}", userId);
         return itemClient.createComment(commentDto, itemId, userId);
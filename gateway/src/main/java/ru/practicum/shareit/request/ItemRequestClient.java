@@ -1,5 +1,6 @@
 package ru.practicum.shareit.request;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -7,42 +8,50 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.client.AsyncServerClient;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                             HttpComponentsClientHttpRequestFactory shareItServerRequestFactory,
+                             ObjectProvider<AsyncServerClient> asyncServerClient,
+                             ResponseCache responseCache) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> shareItServerRequestFactory)
+                        .build(),
+                asyncServerClient.getIfAvailable(),
+                responseCache
         );
     }
 
-    public ResponseEntity<Object> create(ItemRequestDto requestDto, Integer requesterId) {
-        return post("", requesterId, requestDto);
+    public CompletableFuture<ResponseEntity<Object>> create(ItemRequestDto requestDto, Integer requesterId) {
+        return invalidating(post("", requesterId, requestDto), ResponseCache.REQUESTS);
     }
 
-    public ResponseEntity<Object> getItemRequestById(Integer userId, Integer requestId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemRequestById(Integer userId, Integer requestId) {
         return get("/" + requestId, userId);
     }
 
-    public ResponseEntity<Object> getOwnItemRequests(Integer userId) {
+    public CompletableFuture<ResponseEntity<Object>> getOwnItemRequests(Integer userId) {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> getAllItemRequests(Integer userId, Integer from, Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> getAllItemRequests(Integer userId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
         );
-        return get("/all?from={from}&size={size}", userId, parameters);
+        return cachedGet(ResponseCache.REQUESTS, "/all?from={from}&size={size}", userId, parameters);
     }
 }
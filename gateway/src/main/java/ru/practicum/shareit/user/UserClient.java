@@ -1,5 +1,6 @@
 package ru.practicum.shareit.user;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -7,40 +8,49 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.client.AsyncServerClient;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      HttpComponentsClientHttpRequestFactory shareItServerRequestFactory,
+                      ObjectProvider<AsyncServerClient> asyncServerClient,
+                      ResponseCache responseCache) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> shareItServerRequestFactory)
+                        .build(),
+                asyncServerClient.getIfAvailable(),
+                responseCache
         );
     }
 
-    public ResponseEntity<Object> create(UserDto userDto) {
+    public CompletableFuture<ResponseEntity<Object>> create(UserDto userDto) {
         return post("", userDto);
     }
 
-    public ResponseEntity<Object> getUserById(Integer userId) {
+    public CompletableFuture<ResponseEntity<Object>> getUserById(Integer userId) {
         return get("/" + userId);
     }
 
-    public ResponseEntity<Object> getUsers() {
+    public CompletableFuture<ResponseEntity<Object>> getUsers() {
         return get("");
     }
 
-    public ResponseEntity<Object> update(UserDto userDto, Integer userId) {
-        return patch("/" + userId, userDto);
+    public CompletableFuture<ResponseEntity<Object>> update(UserDto userDto, Integer userId) {
+        return invalidating(patch("/" + userId, userDto), ResponseCache.ITEMS, ResponseCache.REQUESTS);
     }
 
-    public ResponseEntity<Object> delete(Integer userId) {
-        return delete("/" + userId);
+    public CompletableFuture<ResponseEntity<Object>> delete(Integer userId) {
+        return invalidating(delete("/" + userId), ResponseCache.ITEMS, ResponseCache.REQUESTS);
     }
 }
\ No newline at end of file
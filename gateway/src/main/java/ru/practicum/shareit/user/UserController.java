@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 @RequestMapping(path = "/users")
@@ -19,31 +20,31 @@ public class UserController {
     private final UserClient userClient;
 
     @GetMapping
-    public ResponseEntity<Object> getUsers() {
+    public CompletableFuture<ResponseEntity<Object>> getUsers() {
         return userClient.getUsers();
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<Object> getUserById(@PathVariable Integer userId) {
+    public CompletableFuture<ResponseEntity<Object>> getUserById(@PathVariable Integer userId) {
         return userClient.getUserById(userId);
     }
 
     @ResponseBody
     @PostMapping
-    public ResponseEntity<Object> create(@Valid @RequestBody UserDto userDto) {
+    public CompletableFuture<ResponseEntity<Object>> create(@Valid @RequestBody UserDto userDto) {
         log.info("Получен POST-запрос к эндпоинту: '/users' на добавление пользователя");
         return userClient.create(userDto);
     }
 
     @ResponseBody
     @PatchMapping("/{userId}")
-    public ResponseEntity<Object> update(@RequestBody UserDto userDto, @PathVariable Integer userId) {
+    public CompletableFuture<ResponseEntity<Object>> update(@RequestBody UserDto userDto, @PathVariable Integer userId) {
         log.info("Получен PATCH-запрос к эндпоинту: '/users' на обновление пользователя с ID={}", userId);
         return userClient.update(userDto, userId);
     }
 
     @DeleteMapping("/{userId}")
-    public ResponseEntity<Object> delete(@PathVariable Integer userId) {
+    public CompletableFuture<ResponseEntity<Object>> delete(@PathVariable Integer userId) {
         log.info("Получен DELETE-запрос к эндпоинту: '/users' на удаление пользователя с ID={}", userId);
         return userClient.delete(userId);
     }
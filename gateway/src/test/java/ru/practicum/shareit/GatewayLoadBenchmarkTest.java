@@ -0,0 +1,125 @@
+package ru.practicum.shareit;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import ru.practicum.shareit.util.VirtualThreads;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares the gateway execution modes against a stub server that answers after a fixed delay. With few Tomcat
+ * threads the blocking mode is capped at {@code TOMCAT_THREADS / SERVER_DELAY} requests per second, the async
+ * mode is not, and neither is the blocking mode on virtual threads. Excluded from the default build, run with
+ * {@code mvn test -Pbenchmark}; the virtual thread comparison needs a Java 21 runtime.
+ */
+@Tag("benchmark")
+public class GatewayLoadBenchmarkTest {
+    private static final long SERVER_DELAY_MILLIS = 50;
+    private static final int TOMCAT_THREADS = 20;
+    private static final int CONCURRENCY = 400;
+    private static final int REQUESTS = 2000;
+    private static final byte[] USERS_JSON = "[{\"id\":1,\"name\":\"Apollon\",\"email\":\"apollo@yandex.ru\"}]"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer stubServer;
+    private ExecutorService stubExecutor;
+
+    @BeforeEach
+    void startStubServer() throws Exception {
+        stubExecutor = Executors.newFixedThreadPool(CONCURRENCY);
+        stubServer = HttpServer.create(new InetSocketAddress("localhost", 0), CONCURRENCY);
+        stubServer.setExecutor(stubExecutor);
+        stubServer.createContext("/users", exchange -> {
+            try {
+                Thread.sleep(SERVER_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, USERS_JSON.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(USERS_JSON);
+            }
+        });
+        stubServer.start();
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        stubServer.stop(0);
+        stubExecutor.shutdownNow();
+    }
+
+    @Test
+    void test_AsyncModeOutperformsBlockingModeOnSmallThreadPool() throws Exception {
+        double blocking = measureThroughput("blocking", false);
+        double async = measureThroughput("async", false);
+        assertTrue(async > blocking, String.format("blocking %.0f req/s, async %.0f req/s", blocking, async));
+    }
+
+    @Test
+    void test_VirtualThreadsOutperformPlatformPoolInBlockingMode() throws Exception {
+        assumeTrue(VirtualThreads.isSupported(), "virtual threads need Java 21");
+        double platform = measureThroughput("blocking", false);
+        double virtual = measureThroughput("blocking", true);
+        assertTrue(virtual > platform, String.format("%d platform threads %.0f req/s, virtual threads %.0f req/s",
+                TOMCAT_THREADS, platform, virtual));
+    }
+
+    private double measureThroughput(String mode, boolean virtualThreads) throws Exception {
+        try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+                new SpringApplicationBuilder(ShareItGateway.class)
+                        .run("--server.port=0",
+                                "--shareit-server.url=http://localhost:" + stubServer.getAddress().getPort(),
+                                "--shareit-server.client.mode=" + mode,
+                                "--shareit.threads.virtual=" + virtualThreads,
+                                "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                                "--server.tomcat.accept-count=" + CONCURRENCY)) {
+            URI uri = URI.create("http://localhost:" + context.getWebServer().getPort() + "/users");
+            HttpClient client = HttpClient.newHttpClient();
+            sendAll(client, uri, CONCURRENCY);
+
+            long startNanos = System.nanoTime();
+            sendAll(client, uri, REQUESTS);
+            long elapsedNanos = System.nanoTime() - startNanos;
+            return REQUESTS / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    private static void sendAll(HttpClient client, URI uri, int requests) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        List<CompletableFuture<Integer>> responses = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            responses.add(client.sendAsync(HttpRequest.newBuilder(uri).GET().build(),
+                            HttpResponse.BodyHandlers.discarding())
+                    .thenApply(HttpResponse::statusCode)
+                    .whenComplete((status, e) -> inFlight.release()));
+        }
+        for (CompletableFuture<Integer> response : responses) {
+            assertEquals(200, response.join());
+        }
+    }
+}
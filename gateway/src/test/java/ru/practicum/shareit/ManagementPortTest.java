@@ -0,0 +1,30 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "management.server.port=0")
+public class ManagementPortTest {
+    @LocalServerPort
+    private int serverPort;
+    @LocalManagementPort
+    private int managementPort;
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void test_CacheMetricsAreServedOnManagementPortOnly() {
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity(
+                "http://localhost:" + managementPort + "/actuator/metrics/cache.hit.ratio", String.class)
+                .getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(
+                "http://localhost:" + serverPort + "/actuator/metrics", String.class).getStatusCode());
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "shareit-server.client.mode=async",
+        "shareit-server.http.max-total=7",
+        "shareit-server.http.max-per-route=5"})
+public class AsyncServerClientTest {
+    private static final byte[] USERS_JSON = "[{\"id\":1,\"name\":\"Apollon\",\"email\":\"apollo@yandex.ru\"}]"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static HttpServer stubServer;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void startStubServer() throws IOException {
+        stubServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stubServer.createContext("/users", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, USERS_JSON.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(USERS_JSON);
+            }
+        });
+        stubServer.start();
+    }
+
+    @AfterAll
+    static void stopStubServer() {
+        stubServer.stop(0);
+    }
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", () -> "http://localhost:" + stubServer.getAddress().getPort());
+    }
+
+    @Test
+    void test_RequestsGoThroughPooledAsyncClient() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/users", String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(new String(USERS_JSON, StandardCharsets.UTF_8), response.getBody());
+        assertEquals(7, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", "shareit-server-async").gauge().value());
+        assertEquals(1, meterRegistry.get("httpcomponents.httpclient.pool.lease")
+                .tag("httpclient", "shareit-server-async").timer().count());
+        assertEquals(0, meterRegistry.get("httpcomponents.httpclient.pool.lease")
+                .tag("httpclient", "shareit-server").timer().count());
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ResponseCacheTest {
+    private SimpleMeterRegistry meterRegistry;
+    private ResponseCache responseCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void beforeEach() {
+        meterRegistry = new SimpleMeterRegistry();
+        responseCache = new ResponseCache(meterRegistry, true, 60_000, 2);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void test_RepeatedGetIsServedFromCache() {
+        load("/items/1 1");
+        load("/items/1 1");
+
+        assertEquals(1, loads.get());
+        assertEquals(0.5, meterRegistry.get("cache.hit.ratio").gauge().value());
+    }
+
+    @Test
+    void test_InvalidateDropsOnlyGivenRegion() {
+        load("/items/1 1");
+        responseCache.get(ResponseCache.REQUESTS, "/requests/all 1", this::loader).join();
+
+        responseCache.invalidate(ResponseCache.ITEMS);
+        load("/items/1 1");
+        responseCache.get(ResponseCache.REQUESTS, "/requests/all 1", this::loader).join();
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void test_LoadStartedBeforeInvalidationIsNotStored() {
+        CompletableFuture<ResponseEntity<Object>> slowLoad = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Object>> response =
+                responseCache.get(ResponseCache.ITEMS, "/items/1 1", () -> slowLoad);
+
+        responseCache.invalidate(ResponseCache.ITEMS);
+        slowLoad.complete(ResponseEntity.ok("stale"));
+        response.join();
+        load("/items/1 1");
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void test_CacheIsBoundedByMaxEntries() {
+        load("/items/1 1");
+        load("/items/2 1");
+        load("/items/3 1");
+
+        assertEquals(3, loads.get());
+        assertEquals(2, meterRegistry.get("cache.size").gauge().value());
+        assertEquals(1, meterRegistry.get("cache.evictions").functionCounter().count());
+    }
+
+    private void load(String key) {
+        responseCache.get(ResponseCache.ITEMS, key, this::loader).join();
+    }
+
+    private CompletableFuture<ResponseEntity<Object>> loader() {
+        loads.incrementAndGet();
+        return CompletableFuture.completedFuture(ResponseEntity.ok("{}"));
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.util.List;
+
+/**
+ * JDBC batch insert for bookings. Bookings use IDENTITY ids, for which Hibernate turns insert batching off.
+ */
+public interface BookingBatchRepository {
+    /**
+     * Inserts the bookings in one JDBC batch and sets their generated ids and initial version.
+     */
+    void insertAll(List<Booking> bookings);
+}
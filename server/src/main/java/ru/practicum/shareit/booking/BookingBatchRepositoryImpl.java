@@ -0,0 +1,58 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+
+public class BookingBatchRepositoryImpl implements BookingBatchRepository {
+    private static final String INSERT_BOOKING = "insert into bookings (start_date, end_date, item_id, booker_id, " +
+            "status, version) values (?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public BookingBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_BOOKING,
+                    Statement.RETURN_GENERATED_KEYS)) {
+                for (Booking booking : bookings) {
+                    statement.setTimestamp(1, Timestamp.valueOf(booking.getStart()));
+                    statement.setTimestamp(2, Timestamp.valueOf(booking.getEnd()));
+                    statement.setInt(3, booking.getItem().getId());
+                    statement.setInt(4, booking.getBooker().getId());
+                    statement.setString(5, booking.getStatus().name());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    int count = 0;
+                    for (Booking booking : bookings) {
+                        if (!keys.next()) {
+                            throw new IncorrectResultSizeDataAccessException(bookings.size(), count);
+                        }
+                        booking.setId(keys.getInt("id"));
+                        booking.setVersion(0);
+                        count++;
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
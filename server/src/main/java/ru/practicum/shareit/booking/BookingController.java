@@ -1,11 +1,20 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.PostBookingDto;
+import ru.practicum.shareit.booking.enums.ExportFormat;
+import ru.practicum.shareit.exception.BadRequestException;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @Slf4j
@@ -14,10 +23,12 @@ import java.util.List;
 public class BookingController {
     private static final String USER_ID_HEADER = "X-Sharer-User-Id";
     private final BookingService service;
+    private final ObjectMapper mapper;
 
     @Autowired
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, ObjectMapper mapper) {
         this.service = bookingService;
+        this.mapper = mapper;
     }
 
     @ResponseBody
@@ -30,6 +41,16 @@ public class BookingController {
         return service.create(postBookingDto, bookerId);
     }
 
+    @ResponseBody
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> createBatch(@RequestBody List<PostBookingDto> postBookingDtos,
+                                                   @RequestHeader(USER_ID_HEADER) Integer bookerId) {
+        log.info("Получен POST-запрос к эндпоинту: '/bookings/batch' " +
+                "на создание {} бронирований от пользователя с ID={}", postBookingDtos.size(), bookerId);
+
+        return service.createBatch(postBookingDtos, bookerId);
+    }
+
     @ResponseBody
     @PatchMapping("/{bookingId}")
     public BookingDto update(@PathVariable Integer bookingId,
@@ -42,31 +63,89 @@ public class BookingController {
 
     @GetMapping("/{bookingId}")
     public BookingDto getBookingById(@PathVariable Integer bookingId,
-                                     @RequestHeader(USER_ID_HEADER) Integer userId) {
+                                     @RequestHeader(USER_ID_HEADER) Integer userId,
+                                     WebRequest webRequest) {
         log.info("Получен PATCH-запрос к эндпоинту: '/bookings' на обновление статуса бронирования с ID={}", bookingId);
 
+        if (webRequest.checkNotModified(service.getBookingETag(bookingId, userId))) {
+            return null;
+        }
         return service.getBookingById(bookingId, userId);
     }
 
     @GetMapping
-    public List<BookingDto> getBookings(@RequestParam(name = "state", defaultValue = "ALL") String state,
-                                        @RequestHeader(USER_ID_HEADER) Integer userId,
-                                        @RequestParam(defaultValue = "0") Integer from,
-                                        @RequestParam(defaultValue = "10") Integer size) {
+    public ResponseEntity<List<BookingDto>> getBookings(@RequestParam(name = "state", defaultValue = "ALL") String state,
+                                                        @RequestHeader(USER_ID_HEADER) Integer userId,
+                                                        @RequestParam(defaultValue = "0") Integer from,
+                                                        @RequestParam(defaultValue = "10") Integer size,
+                                                        @RequestParam(required = false) String cursor) {
         log.info("Получен GET-запрос к эндпоинту: '/bookings' на получение " +
                 "списка всех бронирований пользователя с ID={} с параметром STATE={}", userId, state);
 
-        return service.getBookingList(state, userId, from, size);
+        if (cursor == null || cursor.isBlank()) {
+            return withNextCursor(service.getBookingList(state, userId, from, size), size);
+        }
+        return withNextCursor(service.getBookingListAfter(state, userId, cursor, size), size);
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getBookingsOwner(@RequestParam(name = "state", defaultValue = "ALL") String state,
-                                             @RequestHeader(USER_ID_HEADER) Integer userId,
-                                             @RequestParam(defaultValue = "0") Integer from,
-                                             @RequestParam(defaultValue = "10") Integer size) {
+    public ResponseEntity<List<BookingDto>> getBookingsOwner(@RequestParam(name = "state", defaultValue = "ALL") String state,
+                                                             @RequestHeader(USER_ID_HEADER) Integer userId,
+                                                             @RequestParam(defaultValue = "0") Integer from,
+                                                             @RequestParam(defaultValue = "10") Integer size,
+                                                             @RequestParam(required = false) String cursor) {
         log.info("Получен GET-запрос к эндпоинту: '/bookings/owner' на получение " +
                 "списка всех бронирований вещей пользователя с ID={} с параметром STATE={}", userId, state);
 
-        return service.getBookingsOwner(state, userId, from, size);
+        if (cursor == null || cursor.isBlank()) {
+            return withNextCursor(service.getBookingsOwner(state, userId, from, size), size);
+        }
+        return withNextCursor(service.getBookingsOwnerAfter(state, userId, cursor, size), size);
+    }
+
+    /**
+     * Streams the whole booking history of the user, oldest first, as NDJSON or CSV.
+     */
+    @GetMapping("/export")
+    public void exportBookings(@RequestHeader(USER_ID_HEADER) Integer userId,
+                               @RequestParam(defaultValue = "ndjson") String format,
+                               HttpServletResponse response) throws IOException {
+        log.info("Получен GET-запрос к эндпоинту: '/bookings/export' на выгрузку " +
+                "всех бронирований пользователя с ID={} в формате {}", userId, format);
+
+        export(userId, false, format, response);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportBookingsOwner(@RequestHeader(USER_ID_HEADER) Integer userId,
+                                    @RequestParam(defaultValue = "ndjson") String format,
+                                    HttpServletResponse response) throws IOException {
+        log.info("Получен GET-запрос к эндпоинту: '/bookings/owner/export' на выгрузку " +
+                "всех бронирований вещей пользователя с ID={} в формате {}", userId, format);
+
+        export(userId, true, format, response);
+    }
+
+    private void export(Integer userId, boolean ownerItems, String format,
+                        HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.from(format).orElseThrow(() -> {
+            log.error("BadRequestException: Unknown export format: {}", format);
+            return new BadRequestException("Unknown export format: " + format);
+        });
+        response.setContentType(exportFormat.getMediaType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        BookingExportWriter writer = new BookingExportWriter(exportFormat, mapper, response.getOutputStream());
+        service.exportBookings(userId, ownerItems, writer::write);
+        writer.flush();
+    }
+
+    private ResponseEntity<List<BookingDto>> withNextCursor(List<BookingDto> bookings, Integer size) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!bookings.isEmpty() && bookings.size() >= size) {
+            response.header(BookingCursor.NEXT_CURSOR_HEADER,
+                    BookingCursor.of(bookings.get(bookings.size() - 1)).encode());
+        }
+        return response.body(bookings);
     }
 }
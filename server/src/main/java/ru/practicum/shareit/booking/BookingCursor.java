@@ -0,0 +1,51 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Continuation token for keyset pagination of booking lists ordered by {@code start DESC, id DESC}.
+ * Clients treat it as an opaque string taken from the {@code X-Next-Cursor} response header.
+ */
+@Getter
+@Slf4j
+public class BookingCursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime start;
+    private final Integer id;
+
+    public BookingCursor(LocalDateTime start, Integer id) {
+        this.start = start;
+        this.id = id;
+    }
+
+    public static BookingCursor of(BookingDto booking) {
+        return new BookingCursor(booking.getStart(), booking.getId());
+    }
+
+    public static BookingCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            return new BookingCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Integer.valueOf(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            log.error("BadRequestException: malformed cursor '{}'", token);
+            throw new BadRequestException("Malformed cursor " + token);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((start + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
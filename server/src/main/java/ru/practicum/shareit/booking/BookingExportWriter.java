@@ -0,0 +1,84 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
+import ru.practicum.shareit.booking.enums.ExportFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes exported bookings one line each, as NDJSON or CSV. Lines go through a small buffer straight to the
+ * response stream, nothing is collected. Until the buffer is first flushed the response stays uncommitted,
+ * so an error raised before the first rows still gets a regular error response.
+ */
+class BookingExportWriter {
+    private static final String CSV_HEADER = "id,start,end,status,itemId,itemName,bookerId,bookerName";
+
+    private final ExportFormat format;
+    private final ObjectMapper mapper;
+    private final Writer writer;
+
+    BookingExportWriter(ExportFormat format, ObjectMapper mapper, OutputStream out) {
+        this.format = format;
+        this.mapper = mapper;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writeLine(CSV_HEADER);
+        }
+    }
+
+    void write(BookingExportDto booking) {
+        try {
+            writeLine(format == ExportFormat.CSV ? toCsv(booking) : mapper.writeValueAsString(booking));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void writeLine(String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toCsv(BookingExportDto booking) {
+        return String.join(",",
+                String.valueOf(booking.getId()),
+                format(booking.getStart()),
+                format(booking.getEnd()),
+                booking.getStatus().name(),
+                String.valueOf(booking.getItemId()),
+                quote(booking.getItemName()),
+                String.valueOf(booking.getBookerId()),
+                quote(booking.getBookerName()));
+    }
+
+    private static String format(LocalDateTime time) {
+        return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(time);
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
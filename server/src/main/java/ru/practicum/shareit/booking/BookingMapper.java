@@ -3,11 +3,14 @@ package ru.practicum.shareit.booking;
 import lombok.experimental.UtilityClass;
 
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.coment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.UserMapper;
+import ru.practicum.shareit.user.dto.UserDto;
 
 import java.util.List;
 
@@ -28,6 +31,31 @@ public class BookingMapper {
         }
     }
 
+    public BookingDto toBookingDto(BookingRepository.BookingRow row, List<CommentDto> comments) {
+        return new BookingDto(
+                row.getId(),
+                row.getStartDate(),
+                row.getEndDate(),
+                new ItemDto(row.getItemId(), row.getItemName(), row.getItemDescription(), row.getItemAvailable(),
+                        null, row.getItemRequestId(), null, null, comments),
+                new UserDto(row.getBookerId(), row.getBookerName(), row.getBookerEmail()),
+                row.getStatus()
+        );
+    }
+
+    public BookingExportDto toBookingExportDto(Booking booking) {
+        return new BookingExportDto(
+                booking.getId(),
+                booking.getStart(),
+                booking.getEnd(),
+                booking.getStatus(),
+                booking.getItem().getId(),
+                booking.getItem().getName(),
+                booking.getBooker().getId(),
+                booking.getBooker().getName()
+        );
+    }
+
     public BookingShortDto toBookingShortDto(Booking booking) {
         if (booking != null) {
             return new BookingShortDto(
@@ -1,38 +1,209 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.data.domain.Page;
+import lombok.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.PeriodDto;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.model.Booking;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface BookingRepository extends PagingAndSortingRepository<Booking, Integer> {
-    Page<Booking> findByBookerId(Integer bookerId, Pageable pageable);
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
+public interface BookingRepository extends PagingAndSortingRepository<Booking, Integer>, BookingBatchRepository {
+    /**
+     * Booking list queries read {@link BookingRow} projections with the item and booker columns in one select.
+     * Each list state has its own query, so the database sees a plain predicate it can match against
+     * the booker and item indexes.
+     */
+    String BOOKING_ROW_SELECT = "select new ru.practicum.shareit.booking.BookingRepository$BookingRow(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, i.description, i.available, i.requestId," +
+            " u.id, u.name, u.email)" +
+            " from Booking b join b.item i join b.booker u";
+
+    String BY_BOOKER = " where u.id = :userId";
+
+    String BY_ITEM_OWNER = " where i.owner.id = :userId";
+
+    String CURRENT_CONDITION = " and b.start < :now and b.end > :now";
+
+    String PAST_CONDITION = " and b.end < :now";
+
+    String FUTURE_CONDITION = " and b.start > :now";
+
+    String STATUS_CONDITION = " and b.status = :status";
+
+    String LIST_ORDER = " order by b.start desc, b.id desc";
+
+    String AFTER_CURSOR_CONDITION = " and (b.start < :cursorStart or (b.start = :cursorStart and b.id < :cursorId))" +
+            LIST_ORDER;
+
+    String APPROVED_OVERLAP_SELECT = "select case when count(b) > 0 then true else false end from Booking b" +
+            " where b.item.id = :itemId and b.status = ru.practicum.shareit.booking.enums.Status.APPROVED" +
+            " and b.end > :start and b.start < :end";
+
+    /**
+     * Rows fetched per round trip when a booking history is streamed.
+     */
+    int EXPORT_FETCH_SIZE = 500;
+
+    @Override
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    Optional<Booking> findById(Integer id);
+
+    @Query("select min(b.start) from Booking b where b.item.id = :itemId and b.start > :now" +
+            " and b.status <> ru.practicum.shareit.booking.enums.Status.REJECTED")
+    LocalDateTime findNextBookingStart(@Param("itemId") Integer itemId, @Param("now") LocalDateTime now);
+
+    /**
+     * Streams all bookings of the booker, oldest first, from one open cursor: the whole history is read from
+     * a single snapshot and only {@link #EXPORT_FETCH_SIZE} rows are held by the driver at a time.
+     * Must be consumed inside a transaction.
+     */
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select b from Booking b where b.booker.id = :userId order by b.start, b.id")
+    Stream<Booking> streamByBookerId(@Param("userId") Integer userId);
+
+    /**
+     * Same as {@link #streamByBookerId} for bookings of the owner's items.
+     */
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select b from Booking b where b.item.owner.id = :userId order by b.start, b.id")
+    Stream<Booking> streamByItemOwnerId(@Param("userId") Integer userId);
+
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
     Optional<Booking> findByIdAndItem_Owner_Id(Integer itemId, Integer bookerId);
 
-    Page<Booking> findByBookerIdAndStartIsBeforeAndEndIsAfter(Integer bookerId, LocalDateTime start,
-                                                              LocalDateTime end, Pageable pageable);
+    @Query(BOOKING_ROW_SELECT + BY_BOOKER + LIST_ORDER)
+    Slice<BookingRow> findByBookerId(@Param("userId") Integer userId, Pageable pageable);
+
+    @Query(BOOKING_ROW_SELECT + BY_BOOKER + CURRENT_CONDITION + LIST_ORDER)
+    Slice<BookingRow> findCurrentByBookerId(@Param("userId") Integer userId,
+                                            @Param("now") LocalDateTime now,
+                                            Pageable pageable);
+
+    @Query(BOOKING_ROW_SELECT + BY_BOOKER + PAST_CONDITION + LIST_ORDER)
+    Slice<BookingRow> findPastByBookerId(@Param("userId") Integer userId,
+                                         @Param("now") LocalDateTime now,
+                                         Pageable pageable);
+
+    @Query(BOOKING_ROW_SELECT + BY_BOOKER + FUTURE_CONDITION + LIST_ORDER)
+    Slice<BookingRow> findFutureByBookerId(@Param("userId") Integer userId,
+                                           @Param("now") LocalDateTime now,
+                                           Pageable pageable);
+
+    @Query(BOOKING_ROW_SELECT + BY_BOOKER + STATUS_CONDITION + LIST_ORDER)
+    Slice<BookingRow> findByBookerIdAndStatus(@Param("userId") Integer userId,
+                                              @Param("status") Status status,
+                                              Pageable pageable);
 
-    Page<Booking> findByBookerIdAndEndIsBefore(Integer bookerId, LocalDateTime end, Pageable pageable);
+    @Query(BOOKING_ROW_SELECT + BY_ITEM_OWNER + LIST_ORDER)
+    Slice<BookingRow> findByItemOwnerId(@Param("userId") Integer userId, Pageable pageable);
 
-    Page<Booking> findByBookerIdAndStartIsAfter(Integer bookerId, LocalDateTime start, Pageable pageable);
+    @Query(BOOKING_ROW_SELECT + BY_ITEM_OWNER + CURRENT_CONDITION + LIST_ORDER)
+    Slice<BookingRow> findCurrentByItemOwnerId(@Param("userId") Integer userId,
+                                               @Param("now") LocalDateTime now,
+                                               Pageable pageable);
 
-    Page<Booking> findByBookerIdAndStatus(Integer bookerId, Status status, Pageable pageable);
+    @Query(BOOKING_ROW_SELECT + BY_ITEM_OWNER + PAST_CONDITION + LIST_ORDER)
+    Slice<BookingRow> findPastByItemOwnerId(@Param("userId") Integer userId,
+                                            @Param("now") LocalDateTime now,
+                                            Pageable pageable);
 
-    Page<Booking> findByItem_Owner_Id(Integer ownerId, Pageable pageable);
+    @Query(BOOKING_ROW_SELECT + BY_ITEM_OWNER + FUTURE_CONDITION + LIST_ORDER)
+    Slice<BookingRow> findFutureByItemOwnerId(@Param("userId") Integer userId,
+                                              @Param("now") LocalDateTime now,
+                                              Pageable pageable);
 
-    Page<Booking> findByItem_Owner_IdAndStartIsBeforeAndEndIsAfter(Integer ownerId, LocalDateTime start,
-                                                                   LocalDateTime end, Pageable pageable);
+    @Query(BOOKING_ROW_SELECT + BY_ITEM_OWNER + STATUS_CONDITION + LIST_ORDER)
+    Slice<BookingRow> findByItemOwnerIdAndStatus(@Param("userId") Integer userId,
+                                                 @Param("status") Status status,
+                                                 Pageable pageable);
 
-    Page<Booking> findByItem_Owner_IdAndEndIsBefore(Integer bookerId, LocalDateTime end, Pageable pageable);
+    @Query(BOOKING_ROW_SELECT + BY_BOOKER + AFTER_CURSOR_CONDITION)
+    List<BookingRow> findByBookerIdAfterCursor(@Param("userId") Integer userId,
+                                               @Param("cursorStart") LocalDateTime cursorStart,
+                                               @Param("cursorId") Integer cursorId,
+                                               Pageable pageable);
 
-    Page<Booking> findByItem_Owner_IdAndStartIsAfter(Integer bookerId, LocalDateTime start, Pageable pageable);
+    @Query(BOOKING_ROW_SELECT + BY_BOOKER + CURRENT_CONDITION + AFTER_CURSOR_CONDITION)
+    List<BookingRow> findCurrentByBookerIdAfterCursor(@Param("userId") Integer userId,
+                                                      @Param("now") LocalDateTime now,
+                                                      @Param("cursorStart") LocalDateTime cursorStart,
+                                                      @Param("cursorId") Integer cursorId,
+                                                      Pageable pageable);
 
-    Page<Booking> findByItem_Owner_IdAndStatus(Integer bookerId, Status status, Pageable pageable);
+    @Query(BOOKING_ROW_SELECT + BY_BOOKER + PAST_CONDITION + AFTER_CURSOR_CONDITION)
+    List<BookingRow> findPastByBookerIdAfterCursor(@Param("userId") Integer userId,
+                                                   @Param("now") LocalDateTime now,
+                                                   @Param("cursorStart") LocalDateTime cursorStart,
+                                                   @Param("cursorId") Integer cursorId,
+                                                   Pageable pageable);
+
+    @Query(BOOKING_ROW_SELECT + BY_BOOKER + FUTURE_CONDITION + AFTER_CURSOR_CONDITION)
+    List<BookingRow> findFutureByBookerIdAfterCursor(@Param("userId") Integer userId,
+                                                     @Param("now") LocalDateTime now,
+                                                     @Param("cursorStart") LocalDateTime cursorStart,
+                                                     @Param("cursorId") Integer cursorId,
+                                                     Pageable pageable);
+
+    @Query(BOOKING_ROW_SELECT + BY_BOOKER + STATUS_CONDITION + AFTER_CURSOR_CONDITION)
+    List<BookingRow> findByBookerIdAndStatusAfterCursor(@Param("userId") Integer userId,
+                                                        @Param("status") Status status,
+                                                        @Param("cursorStart") LocalDateTime cursorStart,
+                                                        @Param("cursorId") Integer cursorId,
+                                                        Pageable pageable);
+
+    @Query(BOOKING_ROW_SELECT + BY_ITEM_OWNER + AFTER_CURSOR_CONDITION)
+    List<BookingRow> findByItemOwnerIdAfterCursor(@Param("userId") Integer userId,
+                                                  @Param("cursorStart") LocalDateTime cursorStart,
+                                                  @Param("cursorId") Integer cursorId,
+                                                  Pageable pageable);
+
+    @Query(BOOKING_ROW_SELECT + BY_ITEM_OWNER + CURRENT_CONDITION + AFTER_CURSOR_CONDITION)
+    List<BookingRow> findCurrentByItemOwnerIdAfterCursor(@Param("userId") Integer userId,
+                                                         @Param("now") LocalDateTime now,
+                                                         @Param("cursorStart") LocalDateTime cursorStart,
+                                                         @Param("cursorId") Integer cursorId,
+                                                         Pageable pageable);
+
+    @Query(BOOKING_ROW_SELECT + BY_ITEM_OWNER + PAST_CONDITION + AFTER_CURSOR_CONDITION)
+    List<BookingRow> findPastByItemOwnerIdAfterCursor(@Param("userId") Integer userId,
+                                                      @Param("now") LocalDateTime now,
+                                                      @Param("cursorStart") LocalDateTime cursorStart,
+                                                      @Param("cursorId") Integer cursorId,
+                                                      Pageable pageable);
+
+    @Query(BOOKING_ROW_SELECT + BY_ITEM_OWNER + FUTURE_CONDITION + AFTER_CURSOR_CONDITION)
+    List<BookingRow> findFutureByItemOwnerIdAfterCursor(@Param("userId") Integer userId,
+                                                        @Param("now") LocalDateTime now,
+                                                        @Param("cursorStart") LocalDateTime cursorStart,
+                                                        @Param("cursorId") Integer cursorId,
+                                                        Pageable pageable);
+
+    @Query(BOOKING_ROW_SELECT + BY_ITEM_OWNER + STATUS_CONDITION + AFTER_CURSOR_CONDITION)
+    List<BookingRow> findByItemOwnerIdAndStatusAfterCursor(@Param("userId") Integer userId,
+                                                           @Param("status") Status status,
+                                                           @Param("cursorStart") LocalDateTime cursorStart,
+                                                           @Param("cursorId") Integer cursorId,
+                                                           Pageable pageable);
 
     Booking findFirstByItem_IdAndStartBeforeAndStatusNotOrderByStartDesc(Integer itemId, LocalDateTime time,
                                                                          Status status);
@@ -40,6 +211,104 @@ public interface BookingRepository extends PagingAndSortingRepository<Booking, I
     Booking findFirstByItem_IdAndStartAfterAndStatusNotOrderByStart(Integer itemId, LocalDateTime start,
                                                                     Status status);
 
+    /**
+     * Returns at most two bookings per item: the last one started before {@code now}
+     * and the first one starting after it, both ignoring rejected bookings.
+     */
+    @Query(value = "select ranked.id, ranked.start_date, ranked.end_date, ranked.item_id, ranked.booker_id, " +
+            "ranked.status, ranked.version " +
+            "from (select b.*, row_number() over (" +
+            "   partition by b.item_id, case when b.start_date < :now then 0 else 1 end " +
+            "   order by case when b.start_date < :now then b.start_date end desc, " +
+            "            case when b.start_date > :now then b.start_date end) as rn " +
+            "   from bookings b " +
+            "   where b.item_id in (:itemIds) and b.status <> 'REJECTED' and b.start_date <> :now) ranked " +
+            "where ranked.rn = 1", nativeQuery = true)
+    List<Booking> findLastAndNextBookings(@Param("itemIds") Collection<Integer> itemIds,
+                                          @Param("now") LocalDateTime now);
+
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
     Booking findFirstByItem_IdAndBooker_IdAndEndIsBeforeAndStatus(Integer itemId, Integer userId,
                                                                   LocalDateTime end, Status status);
+
+    /**
+     * Moves a waiting booking to {@code status} and bumps its version. Returns 0 when the booking is no longer
+     * waiting, so of two concurrent decisions on one booking only the first one to commit changes it.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = :status, b.version = b.version + 1" +
+            " where b.id = :bookingId and b.status = ru.practicum.shareit.booking.enums.Status.WAITING")
+    int updateStatusIfWaiting(@Param("bookingId") Integer bookingId, @Param("status") Status status);
+
+    /**
+     * Checks whether {@code [start, end)} overlaps an approved booking of the item.
+     * Served by {@code IDX_BOOKINGS_ITEM_STATUS_END}: only approved bookings ending after {@code start} are read.
+     */
+    @Query(APPROVED_OVERLAP_SELECT)
+    boolean existsApprovedOverlap(@Param("itemId") Integer itemId,
+                                  @Param("start") LocalDateTime start,
+                                  @Param("end") LocalDateTime end);
+
+    /**
+     * Same as {@link #existsApprovedOverlap}, ignoring the booking being approved.
+     */
+    @Query(APPROVED_OVERLAP_SELECT + " and b.id <> :bookingId")
+    boolean existsOtherApprovedOverlap(@Param("bookingId") Integer bookingId,
+                                       @Param("itemId") Integer itemId,
+                                       @Param("start") LocalDateTime start,
+                                       @Param("end") LocalDateTime end);
+
+    @Query("select b.start as startDate, b.end as endDate from Booking b" +
+            " where b.item.id = :itemId and b.status = ru.practicum.shareit.booking.enums.Status.APPROVED" +
+            " and b.end > :since order by b.start")
+    List<BookingPeriod> findApprovedPeriods(@Param("itemId") Integer itemId, @Param("since") LocalDateTime since);
+
+    /**
+     * Approved and waiting bookings of the item that intersect {@code [from, to)}, ordered by start.
+     * One range scan per status on {@code IDX_BOOKINGS_ITEM_STATUS_END}.
+     */
+    @Query("select new ru.practicum.shareit.booking.dto.PeriodDto(b.start, b.end) from Booking b" +
+            " where b.item.id = :itemId and b.status in (ru.practicum.shareit.booking.enums.Status.APPROVED," +
+            " ru.practicum.shareit.booking.enums.Status.WAITING) and b.end > :from and b.start < :to" +
+            " order by b.start")
+    List<PeriodDto> findBusyPeriods(@Param("itemId") Integer itemId,
+                                    @Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to);
+
+    @Query("select b.item.id as itemId, b.start as startDate, b.end as endDate from Booking b" +
+            " where b.item.id in :itemIds and b.status = ru.practicum.shareit.booking.enums.Status.APPROVED" +
+            " and b.end > :from and b.start < :to")
+    List<ItemBookingPeriod> findApprovedPeriodsByItemIds(@Param("itemIds") Collection<Integer> itemIds,
+                                                         @Param("from") LocalDateTime from,
+                                                         @Param("to") LocalDateTime to);
+
+    interface BookingPeriod {
+        LocalDateTime getStartDate();
+
+        LocalDateTime getEndDate();
+    }
+
+    interface ItemBookingPeriod extends BookingPeriod {
+        Integer getItemId();
+    }
+
+    /**
+     * Read-only booking list row with the item and booker columns a booking view shows. It is built by a JPQL
+     * constructor expression: an interface projection would wrap every row in a proxy over a tuple map.
+     */
+    @Value
+    class BookingRow {
+        Integer id;
+        LocalDateTime startDate;
+        LocalDateTime endDate;
+        Status status;
+        Integer itemId;
+        String itemName;
+        String itemDescription;
+        Boolean itemAvailable;
+        Integer itemRequestId;
+        Integer bookerId;
+        String bookerName;
+        String bookerEmail;
+    }
 }
@@ -1,16 +1,26 @@
 package ru.practicum.shareit.booking;
 
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.NearestBookingsDto;
+import ru.practicum.shareit.booking.dto.PeriodDto;
 import ru.practicum.shareit.booking.dto.PostBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 
 public interface BookingService {
     BookingDto create(PostBookingDto postBookingDto, Integer bookerId);
 
+    List<BookingBatchResultDto> createBatch(List<PostBookingDto> postBookingDtos, Integer bookerId);
+
     BookingDto update(Integer bookingId, Integer userId, Boolean approved);
 
     BookingDto getBookingById(Integer bookingId, Integer userId);
@@ -19,9 +29,23 @@ public interface BookingService {
 
     List<BookingDto> getBookingsOwner(String state, Integer userId, Integer from, Integer size);
 
+    List<BookingDto> getBookingListAfter(String state, Integer userId, String cursor, Integer size);
+
+    List<BookingDto> getBookingsOwnerAfter(String state, Integer userId, String cursor, Integer size);
+
     BookingShortDto getLastBooking(Integer itemId);
 
     BookingShortDto getNextBooking(Integer itemId);
 
+    LocalDateTime getNextBookingStart(Integer itemId);
+
+    String getBookingETag(Integer bookingId, Integer userId);
+
+    Map<Integer, NearestBookingsDto> getLastAndNextBookings(Collection<Integer> itemIds);
+
     Booking getBookingWithUserBookedItem(Integer itemId, Integer userId);
+
+    void exportBookings(Integer userId, boolean ownerItems, Consumer<BookingExportDto> action);
+
+    List<PeriodDto> getBusyPeriods(Integer itemId, LocalDateTime from, LocalDateTime to);
 }
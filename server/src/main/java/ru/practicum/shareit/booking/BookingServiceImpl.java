@@ -2,100 +2,283 @@ package ru.practicum.shareit.booking;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.BookingRepository.BookingRow;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.NearestBookingsDto;
+import ru.practicum.shareit.booking.dto.PeriodDto;
 import ru.practicum.shareit.booking.dto.PostBookingDto;
 import ru.practicum.shareit.booking.enums.BookingState;
 import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.exception.*;
-import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.ItemChangedEvent;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.coment.CommentMapper;
 import ru.practicum.shareit.item.coment.CommentRepository;
 import ru.practicum.shareit.item.coment.dto.CommentDto;
-import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.util.Pagination;
+import ru.practicum.shareit.util.TransactionRetry;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
-
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
 @Slf4j
 @Service
+@Transactional
 public class BookingServiceImpl implements BookingService {
+    static final int MAX_BATCH_SIZE = 100;
 
     private final BookingRepository bookingRepository;
     private final UserService userService;
     private final ItemRepository itemRepository;
     private final CommentRepository commentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final TransactionRetry transactionRetry;
+    private final EntityManager entityManager;
 
     @Autowired
     public BookingServiceImpl(BookingRepository bookingRepository,
                               UserService userService,
                               ItemRepository itemRepository,
-                              CommentRepository commentRepository) {
+                              CommentRepository commentRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              BookingIntervalIndex bookingIntervalIndex,
+                              TransactionRetry transactionRetry,
+                              EntityManager entityManager) {
         this.bookingRepository = bookingRepository;
         this.userService = userService;
         this.itemRepository = itemRepository;
         this.commentRepository = commentRepository;
+        this.eventPublisher = eventPublisher;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.transactionRetry = transactionRetry;
+        this.entityManager = entityManager;
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public BookingDto create(PostBookingDto postBookingDto, Integer bookerId) {
+        return transactionRetry.execute(() -> createBooking(postBookingDto, bookerId));
+    }
 
+    /**
+     * Creates up to {@link #MAX_BATCH_SIZE} bookings for one booker. Items and approved bookings of all entries
+     * are loaded with one query each and the accepted bookings are inserted in one JDBC batch. Each entry is
+     * checked as {@code POST /bookings} checks a booking; one it would reject gets its own error result and does
+     * not fail the others. Entries may overlap each other like any waiting bookings; once one of them is approved,
+     * approving an overlapping one fails.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<BookingBatchResultDto> createBatch(List<PostBookingDto> postBookingDtos, Integer bookerId) {
+        if (postBookingDtos == null || postBookingDtos.isEmpty() || postBookingDtos.size() > MAX_BATCH_SIZE) {
+            log.error("BadRequestException: batch must contain from 1 to {} bookings", MAX_BATCH_SIZE);
+            throw new BadRequestException("Batch must contain from 1 to " + MAX_BATCH_SIZE + " bookings");
+        }
+        return transactionRetry.execute(() -> createBookings(postBookingDtos, bookerId));
+    }
+
+    /**
+     * Approves or rejects a waiting booking. The status changes with a conditional update instead of a read,
+     * modify and save, so concurrent decisions on one booking cannot both win.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BookingDto update(Integer bookingId, Integer userId, Boolean approved) {
+        return transactionRetry.execute(() -> decide(bookingId, userId, approved));
+    }
+
+    private BookingDto createBooking(PostBookingDto postBookingDto, Integer bookerId) {
         User user = UserMapper.mapToUser(userService.findUserById(bookerId));
+        checkBookingRequest(postBookingDto);
 
         Integer itemId = postBookingDto.getItemId();
         Item item = itemRepository.findById(itemId).orElseThrow(() -> throwNotFoundException(
                 "NotFoundException: Item with id= " + itemId + " was not found."));
-        boolean isAvailable = item.getAvailable();
+        checkItemCanBeBooked(item, bookerId);
+
+        LocalDateTime start = postBookingDto.getStart();
+        LocalDateTime end = postBookingDto.getEnd();
+        if (bookingIntervalIndex.overlapsApproved(itemId, start, end)) {
+            throw throwAlreadyBookedException(itemId);
+        }
+
+        Booking booking = new Booking(null, start, end, item, user, Status.WAITING, null);
+        List<CommentDto> comments = getCommentsByItemId(itemId);
+        Booking savedBooking = bookingRepository.save(booking);
+        itemRepository.incrementVersion(itemId);
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
+
+        return BookingMapper.toBookingDto(savedBooking, comments);
+    }
 
-        Integer bookingOwnerId = item.getOwner().getId();
+    private List<BookingBatchResultDto> createBookings(List<PostBookingDto> postBookingDtos, Integer bookerId) {
+        User user = UserMapper.mapToUser(userService.findUserById(bookerId));
 
-        if (bookerId.equals(bookingOwnerId)) {
-            log.error("BadRequestException: Item with id='{}' can not be booked by owner", itemId);
-            throw new NotFoundException("Item with id= " + itemId +
-                    " can not be booked by owner");
+        List<PostBookingDto> entries = postBookingDtos.stream()
+                .filter(Objects::nonNull)
+                .collect(toList());
+        Map<Integer, Item> itemsById = itemRepository.findAllByIdIn(entries.stream()
+                        .map(PostBookingDto::getItemId)
+                        .filter(Objects::nonNull)
+                        .collect(toSet())).stream()
+                .collect(toMap(Item::getId, identity()));
+        Map<Integer, List<BookingRepository.ItemBookingPeriod>> bookedByItemId = getApprovedPeriods(entries,
+                itemsById.keySet());
+
+        BookingBatchResultDto[] results = new BookingBatchResultDto[postBookingDtos.size()];
+        List<Booking> bookings = new ArrayList<>();
+        List<Integer> bookingIndexes = new ArrayList<>();
+        for (int i = 0; i < postBookingDtos.size(); i++) {
+            PostBookingDto postBookingDto = postBookingDtos.get(i);
+            try {
+                checkBookingRequest(postBookingDto);
+                Integer itemId = postBookingDto.getItemId();
+                Item item = itemsById.get(itemId);
+                if (item == null) {
+                    throw throwNotFoundException("NotFoundException: Item with id= " + itemId + " was not found.");
+                }
+                checkItemCanBeBooked(item, bookerId);
+
+                LocalDateTime start = postBookingDto.getStart();
+                LocalDateTime end = postBookingDto.getEnd();
+                if (overlaps(bookedByItemId.get(itemId), start, end)) {
+                    throw throwAlreadyBookedException(itemId);
+                }
+                bookings.add(new Booking(null, start, end, item, user, Status.WAITING, null));
+                bookingIndexes.add(i);
+            } catch (BadRequestException e) {
+                results[i] = batchError(i, HttpStatus.BAD_REQUEST, e.getMessage());
+            } catch (NotFoundException e) {
+                results[i] = batchError(i, HttpStatus.NOT_FOUND, e.getMessage());
+            } catch (ConflictException e) {
+                results[i] = batchError(i, HttpStatus.CONFLICT, e.getMessage());
+            }
         }
 
-        if (!isAvailable) {
-            log.error("ConflictException: Item with id='{}' can not be booked.", itemId);
-            throw new BadRequestException("Item with id = " + itemId + " can not be booked");
+        if (!bookings.isEmpty()) {
+            bookingRepository.insertAll(bookings);
+            Set<Integer> itemIds = bookings.stream()
+                    .map(booking -> booking.getItem().getId())
+                    .collect(toSet());
+            Map<Integer, List<CommentDto>> commentsByItemId = getCommentsByItemIds(itemIds);
+            for (int i = 0; i < bookings.size(); i++) {
+                Booking booking = bookings.get(i);
+                List<CommentDto> comments = commentsByItemId.getOrDefault(booking.getItem().getId(),
+                        Collections.emptyList());
+                results[bookingIndexes.get(i)] = new BookingBatchResultDto(bookingIndexes.get(i),
+                        HttpStatus.CREATED.value(), BookingMapper.toBookingDto(booking, comments), null);
+            }
+            itemRepository.incrementVersions(itemIds);
+            itemIds.forEach(itemId -> eventPublisher.publishEvent(new ItemChangedEvent(itemId)));
         }
+        log.info("Пользователь с ID={} создал {} из {} бронирований", bookerId, bookings.size(),
+                postBookingDtos.size());
 
-        Booking booking = new Booking(
-                null,
-                postBookingDto.getStart(),
-                postBookingDto.getEnd(),
-                item,
-                user,
-                Status.WAITING
-        );
+        return Arrays.asList(results);
+    }
 
-        bookingTimeValidation(booking);
+    private Map<Integer, List<BookingRepository.ItemBookingPeriod>> getApprovedPeriods(
+            List<PostBookingDto> postBookingDtos, Collection<Integer> itemIds) {
+        List<LocalDateTime> starts = postBookingDtos.stream()
+                .map(PostBookingDto::getStart)
+                .filter(Objects::nonNull)
+                .collect(toList());
+        List<LocalDateTime> ends = postBookingDtos.stream()
+                .map(PostBookingDto::getEnd)
+                .filter(Objects::nonNull)
+                .collect(toList());
+        if (itemIds.isEmpty() || starts.isEmpty() || ends.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return bookingRepository.findApprovedPeriodsByItemIds(itemIds, Collections.min(starts), Collections.max(ends))
+                .stream()
+                .collect(groupingBy(BookingRepository.ItemBookingPeriod::getItemId));
+    }
 
-        List<CommentDto> comments = getCommentsByItemId(itemId);
+    private static boolean overlaps(List<? extends BookingRepository.BookingPeriod> periods, LocalDateTime start,
+                                    LocalDateTime end) {
+        return periods != null && periods.stream()
+                .anyMatch(period -> period.getEndDate().isAfter(start) && period.getStartDate().isBefore(end));
+    }
 
-        return BookingMapper.toBookingDto(bookingRepository.save(booking), comments);
+    private static BookingBatchResultDto batchError(int index, HttpStatus status, String message) {
+        return new BookingBatchResultDto(index, status.value(), null, message);
     }
 
-    @Override
-    public BookingDto update(Integer bookingId, Integer userId, Boolean approved) {
-        userService.findUserById(userId);
+    /**
+     * Checks the fields of a new booking, the same way for {@code POST /bookings} and each entry of
+     * {@code POST /bookings/batch}. The message names the field that is wrong.
+     */
+    private static void checkBookingRequest(PostBookingDto postBookingDto) {
+        String error = null;
+        if (postBookingDto == null) {
+            error = "Booking must not be null";
+        } else if (postBookingDto.getItemId() == null) {
+            error = "itemId must not be null";
+        } else if (postBookingDto.getStart() == null) {
+            error = "start must not be null";
+        } else if (postBookingDto.getEnd() == null) {
+            error = "end must not be null";
+        } else if (!postBookingDto.getEnd().isAfter(postBookingDto.getStart())) {
+            error = "end must be after start";
+        }
+        if (error != null) {
+            log.error("BadRequestException: {}", error);
+            throw new BadRequestException(error);
+        }
+    }
+
+    private static void checkItemCanBeBooked(Item item, Integer bookerId) {
+        if (bookerId.equals(item.getOwner().getId())) {
+            log.error("BadRequestException: Item with id='{}' can not be booked by owner", item.getId());
+            throw new NotFoundException("Item with id= " + item.getId() + " can not be booked by owner");
+        }
+        if (!item.getAvailable()) {
+            log.error("ConflictException: Item with id='{}' can not be booked.", item.getId());
+            throw new BadRequestException("Item with id = " + item.getId() + " can not be booked");
+        }
+    }
+
+    private BookingDto decide(Integer bookingId, Integer userId, Boolean approved) {
+        userService.checkUserExists(userId);
 
         Booking booking = bookingRepository.findByIdAndItem_Owner_Id(bookingId, userId).orElseThrow(() -> throwNotFoundException(
                 "NotFoundException: Booking with id=" + bookingId + " was not found."));
@@ -103,6 +286,7 @@ public class BookingServiceImpl implements BookingService {
         bookingTimeValidation(booking);
 
         Integer bookerItemId = booking.getItem().getId();
+        Status status;
 
         if ((isItemOwner(bookerItemId, userId))
                 && (!booking.getStatus().equals(Status.CANCELED))) {
@@ -111,10 +295,15 @@ public class BookingServiceImpl implements BookingService {
                 throw new BadRequestException("Booking was made already");
             }
             if (approved) {
-                booking.setStatus(Status.APPROVED);
+                itemRepository.lockById(bookerItemId);
+                if (bookingRepository.existsOtherApprovedOverlap(bookingId, bookerItemId,
+                        booking.getStart(), booking.getEnd())) {
+                    throw throwAlreadyBookedException(bookerItemId);
+                }
+                status = Status.APPROVED;
                 log.info("Пользователь с ID={} подтвердил бронирование с ID={}", userId, bookingId);
             } else {
-                booking.setStatus(Status.REJECTED);
+                status = Status.REJECTED;
                 log.info("Пользователь с ID={} отклонил бронирование с ID={}", userId, bookingId);
             }
         } else {
@@ -130,12 +319,20 @@ public class BookingServiceImpl implements BookingService {
         Integer itemId = booking.getItem().getId();
         List<CommentDto> comments = getCommentsByItemId(itemId);
 
-        return BookingMapper.toBookingDto(bookingRepository.save(booking), comments);
+        changeWaitingStatus(booking, status);
+        itemRepository.incrementVersion(itemId);
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
+        if (approved) {
+            bookingIntervalIndex.addApproved(itemId, booking.getStart(), booking.getEnd());
+        }
+
+        return BookingMapper.toBookingDto(booking, comments);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public BookingDto getBookingById(Integer bookingId, Integer userId) {
-        userService.findUserById(userId);
+        userService.checkUserExists(userId);
 
         Booking booking = bookingRepository.findById(bookingId).orElseThrow(() -> throwNotFoundException(
                 "NotFoundException: Booking with id=" + bookingId + " was not found."));
@@ -154,138 +351,275 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
+    /**
+     * Booking views embed the item and its comments, so the item version is part of the tag.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getBookingETag(Integer bookingId, Integer userId) {
+        userService.checkUserExists(userId);
+
+        Booking booking = bookingRepository.findById(bookingId).orElseThrow(() -> throwNotFoundException(
+                "NotFoundException: Booking with id=" + bookingId + " was not found."));
+        Item item = booking.getItem();
+
+        if (booking.getBooker().getId().equals(userId) || isItemOwner(item.getId(), userId)) {
+            return "booking-" + bookingId + "-v" + booking.getVersion() + "-item-v" + item.getVersion();
+        } else {
+            log.error("NotFoundException: Booking with id='{}' was not found.", bookingId);
+            throw new NotFoundException("Booking was not found");
+        }
+    }
+
     @Override
+    @Transactional(readOnly = true)
     public List<BookingDto> getBookingList(String state, Integer userId, Integer from, Integer size) {
-        userService.findUserById(userId);
+        userService.checkUserExists(userId);
 
-        List<BookingDto> listBookingDto = new ArrayList<>();
-        Sort sort = Sort.by(Sort.Direction.DESC, "start");
         Pagination pager = new Pagination(from, size);
-        Pageable pageable = PageRequest.of(pager.getIndex(), pager.getPageSize(), sort);
+        Pageable pageable = PageRequest.of(pager.getIndex(), pager.getPageSize());
 
-        Page<Booking> page = getPageBookings(state, userId, pageable);
-        listBookingDto.addAll(page.stream()
-                .map(booking -> {
-                    Integer itemId = booking.getItem().getId();
-                    List<CommentDto> comments = getCommentsByItemId(itemId);
-                    return BookingMapper.toBookingDto(booking, comments);
-                })
-                .collect(Collectors.toList()));
+        Slice<BookingRow> page = getPageBookings(state, userId, pageable);
 
-        return listBookingDto;
+        return toBookingDtoList(page.getContent());
     }
 
-    private Page<Booking> getPageBookings(String state, Integer userId, Pageable pageable) {
-        Page<Booking> page;
-        BookingState listStates = stateToEnum(state);
-        switch (listStates) {
+    private Slice<BookingRow> getPageBookings(String state, Integer userId, Pageable pageable) {
+        LocalDateTime now = LocalDateTime.now();
+        switch (stateToEnum(state)) {
             case ALL:
-                page = bookingRepository.findByBookerId(userId, pageable);
-                break;
+                return bookingRepository.findByBookerId(userId, pageable);
             case CURRENT:
-                page = bookingRepository.findByBookerIdAndStartIsBeforeAndEndIsAfter(userId, LocalDateTime.now(),
-                        LocalDateTime.now(), pageable);
-                break;
+                return bookingRepository.findCurrentByBookerId(userId, now, pageable);
             case PAST:
-                page = bookingRepository.findByBookerIdAndEndIsBefore(userId, LocalDateTime.now(), pageable);
-                break;
+                return bookingRepository.findPastByBookerId(userId, now, pageable);
             case FUTURE:
-                page = bookingRepository.findByBookerIdAndStartIsAfter(userId, LocalDateTime.now(), pageable);
-                break;
+                return bookingRepository.findFutureByBookerId(userId, now, pageable);
             case WAITING:
-                page = bookingRepository.findByBookerIdAndStatus(userId, Status.WAITING, pageable);
-                break;
+                return bookingRepository.findByBookerIdAndStatus(userId, Status.WAITING, pageable);
             case REJECTED:
-                page = bookingRepository.findByBookerIdAndStatus(userId, Status.REJECTED, pageable);
-                break;
+                return bookingRepository.findByBookerIdAndStatus(userId, Status.REJECTED, pageable);
             default:
                 throw new ConflictException("Unknown state: " + state);
         }
-        return page;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BookingDto> getBookingsOwner(String state, Integer userId, Integer from, Integer size) {
-        userService.findUserById(userId);
+        userService.checkUserExists(userId);
 
-        List<BookingDto> listBookingDto = new ArrayList<>();
-        Sort sort = Sort.by(Sort.Direction.DESC, "start");
         Pagination pager = new Pagination(from, size);
-        Pageable pageable = PageRequest.of(pager.getIndex(), pager.getPageSize(), sort);
+        Pageable pageable = PageRequest.of(pager.getIndex(), pager.getPageSize());
 
-        Page<Booking> page = getPageBookingsOwner(state, userId, pageable);
-        listBookingDto.addAll(page.stream()
-                .map(booking -> {
-                    Integer itemId = booking.getItem().getId();
-                    List<CommentDto> comments = getCommentsByItemId(itemId);
-                    return BookingMapper.toBookingDto(booking, comments);
-                })
-                .collect(Collectors.toList()));
+        Slice<BookingRow> page = getPageBookingsOwner(state, userId, pageable);
+
+        return toBookingDtoList(page.getContent());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingDto> getBookingListAfter(String state, Integer userId, String cursor, Integer size) {
+        userService.checkUserExists(userId);
+
+        List<BookingRow> bookings = getBookingsAfter(state, userId, BookingCursor.decode(cursor), cursorPage(size));
+
+        return toBookingDtoList(bookings);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingDto> getBookingsOwnerAfter(String state, Integer userId, String cursor, Integer size) {
+        userService.checkUserExists(userId);
+
+        List<BookingRow> bookings = getBookingsOwnerAfter(state, userId, BookingCursor.decode(cursor),
+                cursorPage(size));
 
-        return listBookingDto;
+        return toBookingDtoList(bookings);
     }
 
-    private Page<Booking> getPageBookingsOwner(String state, Integer userId, Pageable pageable) {
-        Page<Booking> page;
-        BookingState listStates = stateToEnum(state);
-        switch (listStates) {
+    private Slice<BookingRow> getPageBookingsOwner(String state, Integer userId, Pageable pageable) {
+        LocalDateTime now = LocalDateTime.now();
+        switch (stateToEnum(state)) {
             case ALL:
-                page = bookingRepository.findByItem_Owner_Id(userId, pageable);
-                break;
+                return bookingRepository.findByItemOwnerId(userId, pageable);
             case CURRENT:
-                page = bookingRepository.findByItem_Owner_IdAndStartIsBeforeAndEndIsAfter(userId, LocalDateTime.now(),
-                        LocalDateTime.now(), pageable);
-                break;
+                return bookingRepository.findCurrentByItemOwnerId(userId, now, pageable);
             case PAST:
-                page = bookingRepository.findByItem_Owner_IdAndEndIsBefore(userId, LocalDateTime.now(), pageable);
-                break;
+                return bookingRepository.findPastByItemOwnerId(userId, now, pageable);
             case FUTURE:
-                page = bookingRepository.findByItem_Owner_IdAndStartIsAfter(userId, LocalDateTime.now(),
+                return bookingRepository.findFutureByItemOwnerId(userId, now, pageable);
+            case WAITING:
+                return bookingRepository.findByItemOwnerIdAndStatus(userId, Status.WAITING, pageable);
+            case REJECTED:
+                return bookingRepository.findByItemOwnerIdAndStatus(userId, Status.REJECTED, pageable);
+            default:
+                throw new ConflictException("Unknown state: " + state);
+        }
+    }
+
+    private List<BookingRow> getBookingsAfter(String state, Integer userId, BookingCursor after, Pageable pageable) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = after.getStart();
+        Integer id = after.getId();
+        switch (stateToEnum(state)) {
+            case ALL:
+                return bookingRepository.findByBookerIdAfterCursor(userId, start, id, pageable);
+            case CURRENT:
+                return bookingRepository.findCurrentByBookerIdAfterCursor(userId, now, start, id, pageable);
+            case PAST:
+                return bookingRepository.findPastByBookerIdAfterCursor(userId, now, start, id, pageable);
+            case FUTURE:
+                return bookingRepository.findFutureByBookerIdAfterCursor(userId, now, start, id, pageable);
+            case WAITING:
+                return bookingRepository.findByBookerIdAndStatusAfterCursor(userId, Status.WAITING, start, id,
+                        pageable);
+            case REJECTED:
+                return bookingRepository.findByBookerIdAndStatusAfterCursor(userId, Status.REJECTED, start, id,
                         pageable);
-                break;
+            default:
+                throw new ConflictException("Unknown state: " + state);
+        }
+    }
+
+    private List<BookingRow> getBookingsOwnerAfter(String state, Integer userId, BookingCursor after,
+                                                Pageable pageable) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = after.getStart();
+        Integer id = after.getId();
+        switch (stateToEnum(state)) {
+            case ALL:
+                return bookingRepository.findByItemOwnerIdAfterCursor(userId, start, id, pageable);
+            case CURRENT:
+                return bookingRepository.findCurrentByItemOwnerIdAfterCursor(userId, now, start, id, pageable);
+            case PAST:
+                return bookingRepository.findPastByItemOwnerIdAfterCursor(userId, now, start, id, pageable);
+            case FUTURE:
+                return bookingRepository.findFutureByItemOwnerIdAfterCursor(userId, now, start, id, pageable);
             case WAITING:
-                page = bookingRepository.findByItem_Owner_IdAndStatus(userId, Status.WAITING, pageable);
-                break;
+                return bookingRepository.findByItemOwnerIdAndStatusAfterCursor(userId, Status.WAITING, start, id,
+                        pageable);
             case REJECTED:
-                page = bookingRepository.findByItem_Owner_IdAndStatus(userId, Status.REJECTED, pageable);
-                break;
+                return bookingRepository.findByItemOwnerIdAndStatusAfterCursor(userId, Status.REJECTED, start, id,
+                        pageable);
             default:
                 throw new ConflictException("Unknown state: " + state);
         }
-        return page;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public BookingShortDto getLastBooking(Integer itemId) {
         return BookingMapper.toBookingShortDto(bookingRepository.findFirstByItem_IdAndStartBeforeAndStatusNotOrderByStartDesc(itemId,
                 LocalDateTime.now(), Status.REJECTED));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public BookingShortDto getNextBooking(Integer itemId) {
         return BookingMapper.toBookingShortDto(bookingRepository.findFirstByItem_IdAndStartAfterAndStatusNotOrderByStart(
                 itemId, LocalDateTime.now(), Status.REJECTED));
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public LocalDateTime getNextBookingStart(Integer itemId) {
+        return bookingRepository.findNextBookingStart(itemId, LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Integer, NearestBookingsDto> getLastAndNextBookings(Collection<Integer> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, NearestBookingsDto> bookingsByItemId = new HashMap<>();
+        for (Booking booking : bookingRepository.findLastAndNextBookings(itemIds, now)) {
+            NearestBookingsDto nearest = bookingsByItemId.computeIfAbsent(booking.getItem().getId(),
+                    id -> new NearestBookingsDto(null, null));
+            if (booking.getStart().isBefore(now)) {
+                nearest.setLastBooking(BookingMapper.toBookingShortDto(booking));
+            } else {
+                nearest.setNextBooking(BookingMapper.toBookingShortDto(booking));
+            }
+        }
+        return bookingsByItemId;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Booking getBookingWithUserBookedItem(Integer itemId, Integer userId) {
         return bookingRepository.findFirstByItem_IdAndBooker_IdAndEndIsBeforeAndStatus(itemId,
                 userId, LocalDateTime.now(), Status.APPROVED);
     }
 
+    /**
+     * Passes every booking of the booker, or of the owner's items, to {@code action} while the query cursor is
+     * open. The persistence context is cleared after each fetched chunk, so memory does not grow with history.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBookings(Integer userId, boolean ownerItems, Consumer<BookingExportDto> action) {
+        userService.checkUserExists(userId);
+
+        try (Stream<Booking> bookings = ownerItems
+                ? bookingRepository.streamByItemOwnerId(userId)
+                : bookingRepository.streamByBookerId(userId)) {
+            Iterator<Booking> iterator = bookings.iterator();
+            int count = 0;
+            while (iterator.hasNext()) {
+                action.accept(BookingMapper.toBookingExportDto(iterator.next()));
+                if (++count % BookingRepository.EXPORT_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+            log.info("Выгружено {} бронирований пользователя с ID={}", count, userId);
+        }
+    }
+
+    /**
+     * Returns approved and waiting bookings of the item within {@code [from, to)} as merged periods,
+     * clipped to the range and ordered by start.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<PeriodDto> getBusyPeriods(Integer itemId, LocalDateTime from, LocalDateTime to) {
+        List<PeriodDto> busy = new ArrayList<>();
+        PeriodDto current = null;
+        for (PeriodDto period : bookingRepository.findBusyPeriods(itemId, from, to)) {
+            LocalDateTime start = period.getStart().isBefore(from) ? from : period.getStart();
+            LocalDateTime end = period.getEnd().isAfter(to) ? to : period.getEnd();
+            if (current != null && !start.isAfter(current.getEnd())) {
+                if (end.isAfter(current.getEnd())) {
+                    current.setEnd(end);
+                }
+            } else {
+                current = new PeriodDto(start, end);
+                busy.add(current);
+            }
+        }
+        return busy;
+    }
+
+    private void changeWaitingStatus(Booking booking, Status status) {
+        int updated;
+        try {
+            updated = bookingRepository.updateStatusIfWaiting(booking.getId(), status);
+        } catch (DataIntegrityViolationException e) {
+            // the Postgres exclusion constraint caught an overlapping approval
+            throw throwAlreadyBookedException(booking.getItem().getId());
+        }
+        if (updated == 0) {
+            log.error("BadRequestException: Booking was made already");
+            throw new BadRequestException("Booking was made already");
+        }
+        booking.setStatus(status);
+        booking.setVersion(booking.getVersion() + 1);
+    }
+
     private boolean isItemOwner(Integer itemId, Integer userId) {
-        List<ItemDto> items = itemRepository.findByOwnerId(userId, Pageable.unpaged()).stream()
-                .map(item -> {
-                    Integer id = item.getId();
-                    List<CommentDto> comments = getCommentsByItemId(id);
-                    BookingShortDto lastBooking = getLastBooking(id);
-                    BookingShortDto nextBooking = getNextBooking(id);
-                    return ItemMapper.toItemWithBookingDto(item, lastBooking, nextBooking, comments);
-                })
-                .sorted(Comparator.comparing(ItemDto::getId))
-                .collect(toList());
-        return items.stream()
-                .anyMatch(item -> item.getId().equals(itemId));
+        return itemRepository.existsByIdAndOwnerId(itemId, userId);
     }
 
     private void bookingTimeValidation(Booking booking) {
@@ -304,6 +638,11 @@ public class BookingServiceImpl implements BookingService {
         throw new NotFoundException(message);
     }
 
+    private ConflictException throwAlreadyBookedException(Integer itemId) {
+        log.error("ConflictException: Item with id='{}' is already booked for this period", itemId);
+        throw new ConflictException("Item with id= " + itemId + " is already booked for this period");
+    }
+
     private BookingState stateToEnum(String stateParam) {
         BookingState state;
         try {
@@ -322,4 +661,30 @@ public class BookingServiceImpl implements BookingService {
                 .map(CommentMapper::mapToCommentDto)
                 .collect(toList());
     }
+
+    private Pageable cursorPage(Integer size) {
+        if (size <= 0) {
+            log.error("BadRequestException: value size={} must be positive", size);
+            throw new BadRequestException("value size=" + size + " must be positive");
+        }
+        return PageRequest.of(0, size);
+    }
+
+    private List<BookingDto> toBookingDtoList(List<BookingRow> bookings) {
+        Map<Integer, List<CommentDto>> commentsByItemId = getCommentsByItemIds(bookings.stream()
+                .map(BookingRow::getItemId)
+                .collect(toSet()));
+
+        return bookings.stream()
+                .map(booking -> {
+                    Integer itemId = booking.getItemId();
+                    List<CommentDto> comments = commentsByItemId.getOrDefault(itemId, Collections.emptyList());
+                    return BookingMapper.toBookingDto(booking, comments);
+                })
+                .collect(toList());
+    }
+
+    private Map<Integer, List<CommentDto>> getCommentsByItemIds(Collection<Integer> itemIds) {
+        return CommentMapper.mapToCommentDtoMap(commentRepository.findAllGroupedByItemId(itemIds));
+    }
 }
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Outcome of one entry of a batch booking request: the created booking, or the HTTP status and message
+ * the same booking would have been rejected with by {@code POST /bookings}.
+ */
+@Data
+@AllArgsConstructor
+public class BookingBatchResultDto {
+    private Integer index;
+
+    private Integer status;
+
+    private BookingDto booking;
+
+    private String error;
+}
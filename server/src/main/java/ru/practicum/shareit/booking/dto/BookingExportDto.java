@@ -0,0 +1,30 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.booking.enums.Status;
+
+import java.time.LocalDateTime;
+
+/**
+ * One flat row of a booking history export.
+ */
+@Data
+@AllArgsConstructor
+public class BookingExportDto {
+    private Integer id;
+
+    private LocalDateTime start;
+
+    private LocalDateTime end;
+
+    private Status status;
+
+    private Integer itemId;
+
+    private String itemName;
+
+    private Integer bookerId;
+
+    private String bookerName;
+}
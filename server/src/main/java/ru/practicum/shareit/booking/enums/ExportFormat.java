@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking.enums;
+
+import java.util.Optional;
+
+public enum ExportFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final String mediaType;
+
+    ExportFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public static Optional<ExportFormat> from(String format) {
+        for (ExportFormat value : values()) {
+            if (value.name().equalsIgnoreCase(format)) {
+                return Optional.of(value);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,142 @@
+package ru.practicum.shareit.booking.interval;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * In-memory index of approved booking intervals for recently booked items.
+ * <p>
+ * Answers the same question as {@link BookingRepository#existsApprovedOverlap}. The approved bookings of an item
+ * are kept as merged, non-overlapping intervals in a tree keyed by start, so an overlap check is one
+ * {@code lowerEntry} lookup, O(log n) in the number of intervals. An item is loaded on its first check with its
+ * approved bookings ending after that moment, which is enough for every later check of a period that does not
+ * start in the past. Older periods are checked in the database.
+ * <p>
+ * The index is off unless {@code shareit.booking.interval-index.enabled=true}. It holds at most
+ * {@code shareit.booking.interval-index.max-items} items and drops the least recently checked one beyond that.
+ * {@link ru.practicum.shareit.booking.BookingServiceImpl} adds approved bookings once their transaction commits.
+ */
+@Component
+public class BookingIntervalIndex {
+    private final BookingRepository bookingRepository;
+    private final boolean enabled;
+    private final int maxItems;
+    private final LinkedHashMap<Integer, ItemIntervals> items;
+    private long generation;
+
+    @Autowired
+    public BookingIntervalIndex(BookingRepository bookingRepository,
+                                @Value("${shareit.booking.interval-index.enabled:false}") boolean enabled,
+                                @Value("${shareit.booking.interval-index.max-items:1000}") int maxItems) {
+        this.bookingRepository = bookingRepository;
+        this.enabled = enabled;
+        this.maxItems = maxItems;
+        this.items = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ItemIntervals> eldest) {
+                return size() > BookingIntervalIndex.this.maxItems;
+            }
+        };
+    }
+
+    /**
+     * Checks whether {@code [start, end)} overlaps an approved booking of the item.
+     */
+    public boolean overlapsApproved(Integer itemId, LocalDateTime start, LocalDateTime end) {
+        if (!enabled) {
+            return bookingRepository.existsApprovedOverlap(itemId, start, end);
+        }
+        long loadGeneration;
+        synchronized (this) {
+            ItemIntervals intervals = items.get(itemId);
+            if (intervals != null && !start.isBefore(intervals.since)) {
+                return intervals.overlaps(start, end);
+            }
+            loadGeneration = generation;
+        }
+        LocalDateTime since = LocalDateTime.now();
+        if (start.isBefore(since)) {
+            return bookingRepository.existsApprovedOverlap(itemId, start, end);
+        }
+        ItemIntervals intervals = new ItemIntervals(since);
+        for (BookingRepository.BookingPeriod period : bookingRepository.findApprovedPeriods(itemId, since)) {
+            intervals.add(period.getStartDate(), period.getEndDate());
+        }
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                items.put(itemId, intervals);
+            }
+        }
+        return intervals.overlaps(start, end);
+    }
+
+    /**
+     * Records an approved booking once the surrounding transaction commits.
+     */
+    public void addApproved(Integer itemId, LocalDateTime start, LocalDateTime end) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addNow(itemId, start, end);
+                }
+            });
+        } else {
+            addNow(itemId, start, end);
+        }
+    }
+
+    private synchronized void addNow(Integer itemId, LocalDateTime start, LocalDateTime end) {
+        generation++;
+        ItemIntervals intervals = items.get(itemId);
+        if (intervals != null) {
+            intervals.add(start, end);
+        }
+    }
+
+    private static class ItemIntervals {
+        private final LocalDateTime since;
+        private final NavigableMap<LocalDateTime, LocalDateTime> busy = new TreeMap<>();
+
+        ItemIntervals(LocalDateTime since) {
+            this.since = since;
+        }
+
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            Map.Entry<LocalDateTime, LocalDateTime> before = busy.lowerEntry(end);
+            return before != null && before.getValue().isAfter(start);
+        }
+
+        void add(LocalDateTime start, LocalDateTime end) {
+            Map.Entry<LocalDateTime, LocalDateTime> before = busy.floorEntry(start);
+            if (before != null && !before.getValue().isBefore(start)) {
+                start = before.getKey();
+                if (before.getValue().isAfter(end)) {
+                    end = before.getValue();
+                }
+            }
+            Map.Entry<LocalDateTime, LocalDateTime> next = busy.ceilingEntry(start);
+            while (next != null && !next.getKey().isAfter(end)) {
+                if (next.getValue().isAfter(end)) {
+                    end = next.getValue();
+                }
+                busy.remove(next.getKey());
+                next = busy.higherEntry(next.getKey());
+            }
+            busy.put(start, end);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when an item, one of its bookings or its comments change.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemChangedEvent {
+    private final Integer itemId;
+}
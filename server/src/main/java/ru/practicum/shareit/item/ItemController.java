@@ -2,10 +2,14 @@ package ru.practicum.shareit.item;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.item.coment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Slf4j
@@ -22,12 +26,28 @@ public class ItemController {
 
     @GetMapping("/{itemId}")
     public ItemDto getItemById(@PathVariable Integer itemId,
-                               @RequestHeader(owner) Integer ownerId) {
+                               @RequestHeader(owner) Integer ownerId,
+                               WebRequest webRequest) {
         log.info("Получен GET-запрос к эндпоинту: '/items' на получение вещи с ID={}", itemId);
 
+        if (webRequest.checkNotModified(itemService.getItemETag(itemId, ownerId))) {
+            return null;
+        }
         return itemService.getItemById(itemId, ownerId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable Integer itemId,
+                                               @RequestHeader(owner) Integer userId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime to) {
+        log.info("Получен GET-запрос к эндпоинту: '/items/{}/availability' с {} по {}", itemId, from, to);
+
+        return itemService.getAvailability(itemId, userId, from, to);
+    }
+
     @ResponseBody
     @PostMapping
     public ItemDto create(@RequestBody ItemDto itemDto,
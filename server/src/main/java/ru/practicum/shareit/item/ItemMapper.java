@@ -42,6 +42,26 @@ public class ItemMapper {
                 comments);
     }
 
+    public ItemDto mapToItemDto(ItemRepository.ItemRow item, List<CommentDto> comments) {
+        return toItemWithBookingDto(item, null, null, comments);
+    }
+
+    public ItemDto toItemWithBookingDto(ItemRepository.ItemRow item,
+                                        BookingShortDto lastBooking,
+                                        BookingShortDto nextBooking,
+                                        List<CommentDto> comments) {
+        return new ItemDto(
+                item.getId(),
+                item.getName(),
+                item.getDescription(),
+                item.getAvailable(),
+                null,
+                item.getRequestId(),
+                lastBooking,
+                nextBooking,
+                comments);
+    }
+
     public Item mapToItem(ItemDto itemDto, User owner) {
         return new Item(
                 itemDto.getId(),
@@ -49,7 +69,8 @@ public class ItemMapper {
                 itemDto.getDescription(),
                 itemDto.getAvailable(),
                 owner,
-                itemDto.getRequestId() != null ? itemDto.getRequestId() : null
+                itemDto.getRequestId() != null ? itemDto.getRequestId() : null,
+                null
         );
     }
 }
@@ -1,26 +1,95 @@
 package ru.practicum.shareit.item;
 
-import org.springframework.data.domain.Page;
+import lombok.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
-public interface ItemRepository extends PagingAndSortingRepository<Item, Integer> {
-    Page<Item> findByOwnerId(Integer ownerId, Pageable pageable);
+public interface ItemRepository extends PagingAndSortingRepository<Item, Integer>, ItemVersionRepository {
+    @Override
+    @EntityGraph(attributePaths = "owner")
+    Optional<Item> findById(Integer id);
+
+    Slice<ItemRow> findRowsByOwnerId(Integer ownerId, Pageable pageable);
 
     Optional<Item> findByIdAndOwnerId(Integer itemId, Integer bookerId);
 
+    boolean existsByIdAndOwnerId(Integer itemId, Integer ownerId);
+
     @Query(" select i from Item i " +
             "where lower(i.name) like lower(concat('%', :search, '%')) " +
             " or lower(i.description) like lower(concat('%', :search, '%')) " +
             " and i.available = true")
-    Page<Item> getItemsBySearchQuery(@Param("search") String text, Pageable pageable);
+    Slice<Item> getItemsBySearchQuery(@Param("search") String text, Pageable pageable);
+
+    List<ItemRow> findRowsByRequestId(Integer requestId, Sort sort);
+
+    List<ItemRow> findRowsByRequestIdIn(Collection<Integer> requestIds, Sort sort);
+
+    @Query("select count(i) as count, coalesce(sum(i.version), 0) as versionSum, coalesce(max(i.id), 0) as maxId " +
+            "from Item i where i.requestId = :requestId")
+    ItemsVersion getItemsVersionByRequestId(@Param("requestId") Integer requestId);
+
+    @Query("select new ru.practicum.shareit.item.ItemRepository$ItemVersion(i.version, i.owner.id) " +
+            "from Item i where i.id = :itemId")
+    Optional<ItemVersion> findVersionById(@Param("itemId") Integer itemId);
+
+    @Query("select i.id from Item i where i.id in :ids")
+    Set<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Sum of the versions of the owner and the comment authors. Users only ever gain versions, and a new
+     * comment bumps the item version, so the sum changes whenever one of them is renamed.
+     */
+    @Query(value = "select coalesce(sum(u.version), 0) from users u where u.id = :ownerId " +
+            "or u.id in (select c.author_id from comments c where c.item_id = :itemId)", nativeQuery = true)
+    long getUsersVersionByItemId(@Param("itemId") Integer itemId, @Param("ownerId") Integer ownerId);
+
+    @EntityGraph(attributePaths = "owner")
+    List<Item> findAllByIdIn(Collection<Integer> ids);
+
+    /**
+     * Locks the item row until the transaction ends, so bookings of one item are approved one at a time.
+     */
+    @Query(value = "select id from items where id = :itemId for update", nativeQuery = true)
+    Integer lockById(@Param("itemId") Integer itemId);
+
+    /**
+     * Read-only item columns for list views, selected without loading the owner.
+     */
+    @Value
+    class ItemRow {
+        Integer id;
+        String name;
+        String description;
+        Boolean available;
+        Integer requestId;
+    }
+
+    /**
+     * Item version and owner, all an item ETag needs.
+     */
+    @Value
+    class ItemVersion {
+        Integer version;
+        Integer ownerId;
+    }
+
+    interface ItemsVersion {
+        long getCount();
+
+        long getVersionSum();
 
-    List<Item> findAllByRequestId(Integer requestId, Sort sort);
+        int getMaxId();
+    }
 }
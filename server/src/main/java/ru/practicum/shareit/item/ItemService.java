@@ -1,8 +1,10 @@
 package ru.practicum.shareit.item;
 
 import ru.practicum.shareit.item.coment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
@@ -12,6 +14,10 @@ public interface ItemService {
 
     ItemDto getItemById(Integer id, Integer userId);
 
+    String getItemETag(Integer itemId, Integer userId);
+
+    ItemAvailabilityDto getAvailability(Integer itemId, Integer userId, LocalDateTime from, LocalDateTime to);
+
     ItemDto update(ItemDto itemDto, Integer ownerId);
 
     void delete(Integer itemId, Integer ownerId);
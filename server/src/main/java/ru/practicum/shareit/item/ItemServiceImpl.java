@@ -2,13 +2,17 @@ package ru.practicum.shareit.item;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.NearestBookingsDto;
+import ru.practicum.shareit.booking.dto.PeriodDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.BookingService;
 import ru.practicum.shareit.exception.NotFoundException;
@@ -17,17 +21,24 @@ import ru.practicum.shareit.item.coment.CommentMapper;
 import ru.practicum.shareit.item.coment.CommentRepository;
 import ru.practicum.shareit.item.coment.dto.CommentDto;
 import ru.practicum.shareit.item.coment.model.Comment;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.util.Pagination;
 
-import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import static java.util.stream.Collectors.toList;
 
@@ -39,17 +50,25 @@ public class ItemServiceImpl implements ItemService {
     private final UserService userService;
     private final CommentRepository commentRepository;
     private final BookingService bookingService;
-
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemViewCache itemViewCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public ItemServiceImpl(ItemRepository itemRepository,
                            UserService userService,
                            CommentRepository commentRepository,
-                           BookingService bookingService) {
+                           BookingService bookingService,
+                           ItemSearchIndex itemSearchIndex,
+                           ItemViewCache itemViewCache,
+                           ApplicationEventPublisher eventPublisher) {
         this.itemRepository = itemRepository;
         this.userService = userService;
         this.commentRepository = commentRepository;
         this.bookingService = bookingService;
+        this.itemSearchIndex = itemSearchIndex;
+        this.itemViewCache = itemViewCache;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -60,28 +79,38 @@ public class ItemServiceImpl implements ItemService {
         }
         User owner = UserMapper.mapToUser(userService.findUserById(ownerId));
 
-        return ItemMapper.mapToItemDto(
-                itemRepository.save(ItemMapper.mapToItem(itemDto, owner)), getCommentsByItemId(itemDto.getId())
-        );
+        Item newItem = ItemMapper.mapToItem(itemDto, owner);
+        newItem.setId(null);
+        Item item = itemRepository.save(newItem);
+        itemSearchIndex.put(item);
+
+        return ItemMapper.mapToItemDto(item, Collections.emptyList());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemDto> getItemsByOwner(Integer ownerId, Integer from, Integer size) {
-        userService.findUserById(ownerId);
+        userService.checkUserExists(ownerId);
 
         List<ItemDto> listItemExtDto = new ArrayList<>();
         Sort sort = Sort.by(Sort.Direction.ASC, "id");
         Pagination pager = new Pagination(from, size);
         Pageable pageable = PageRequest.of(pager.getIndex(), pager.getPageSize(), sort);
 
-        Page<Item> page = itemRepository.findByOwnerId(ownerId, pageable);
+        Slice<ItemRepository.ItemRow> page = itemRepository.findRowsByOwnerId(ownerId, pageable);
+        List<Integer> itemIds = page.stream()
+                .map(ItemRepository.ItemRow::getId)
+                .collect(toList());
+        Map<Integer, List<CommentDto>> commentsByItemId = getCommentsByItemIds(itemIds);
+        Map<Integer, NearestBookingsDto> bookingsByItemId = bookingService.getLastAndNextBookings(itemIds);
         listItemExtDto.addAll(page.stream()
                 .map(item -> {
                     Integer itemId = item.getId();
-                    List<CommentDto> comments = getCommentsByItemId(itemId);
-                    BookingShortDto lastBooking = bookingService.getLastBooking(itemId);
-                    BookingShortDto nextBooking = bookingService.getNextBooking(itemId);
-                    return ItemMapper.toItemWithBookingDto(item, lastBooking, nextBooking, comments);
+                    List<CommentDto> comments = commentsByItemId.getOrDefault(itemId, Collections.emptyList());
+                    NearestBookingsDto bookings = bookingsByItemId.getOrDefault(itemId,
+                            new NearestBookingsDto(null, null));
+                    return ItemMapper.toItemWithBookingDto(item, bookings.getLastBooking(),
+                            bookings.getNextBooking(), comments);
                 })
                 .collect(toList()));
 
@@ -91,35 +120,67 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemDto getItemById(Integer itemId, Integer userId) {
-        ItemDto itemDto;
-        Item item = itemRepository.findById(itemId).orElseThrow(() -> throwNotFoundException(
-                "NotFoundException: Item with id= " + itemId + " was not found."));
+        userService.checkUserExists(userId);
+        ItemDto itemDto = itemViewCache.get(itemId, () -> loadItemView(itemId));
+        if (!userId.equals(itemDto.getOwner().getId())) {
+            itemDto.setLastBooking(null);
+            itemDto.setNextBooking(null);
+        }
+        return itemDto;
+    }
 
-        BookingShortDto lastBooking = bookingService.getLastBooking(itemId);
-        BookingShortDto nextBooking = bookingService.getNextBooking(itemId);
-        List<CommentDto> comments = getCommentsByItemId(itemId);
+    /**
+     * The item version changes with the item itself, its comments and its bookings. The view also shows the
+     * owner and the comment authors, so their versions are added. For the owner the start of the next booking
+     * is added too, so the tag also changes when that booking becomes the last one.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getItemETag(Integer itemId, Integer userId) {
+        userService.checkUserExists(userId);
+        ItemRepository.ItemVersion item = itemRepository.findVersionById(itemId).orElseThrow(() ->
+                throwNotFoundException("NotFoundException: Item with id= " + itemId + " was not found."));
+        String eTag = "item-" + itemId + "-v" + item.getVersion() +
+                "-users-v" + itemRepository.getUsersVersionByItemId(itemId, item.getOwnerId());
+        if (userId.equals(item.getOwnerId())) {
+            eTag += "-next-" + bookingService.getNextBookingStart(itemId);
+        }
+        return eTag;
+    }
 
-        if (item == null) {
-            log.error("NotFoundException: Item with id='{}' was not found.", itemId);
-            throw new NotFoundException("Item was not found");
+    @Override
+    @Transactional(readOnly = true)
+    public ItemAvailabilityDto getAvailability(Integer itemId, Integer userId, LocalDateTime from, LocalDateTime to) {
+        userService.checkUserExists(userId);
+
+        if (!from.isBefore(to)) {
+            log.error("BadRequestException: from={} must be before to={}", from, to);
+            throw new BadRequestException("from=" + from + " must be before to=" + to);
         }
-        if (userId.equals(item.getOwner().getId())) {
-            itemDto = ItemMapper.toItemWithBookingDto(item, lastBooking, nextBooking, comments);
-        } else {
-            itemDto = ItemMapper.mapToItemDto(item, getCommentsByItemId(itemId));
+        if (!itemRepository.existsById(itemId)) {
+            throwNotFoundException("NotFoundException: Item with id= " + itemId + " was not found.");
         }
 
-        log.info("----------------------");
-        log.info("itemDto = " + itemDto);
-        log.info("lastBooking = " + lastBooking);
-        log.info("nextBooking = " + nextBooking);
-        return itemDto;
+        List<PeriodDto> busy = bookingService.getBusyPeriods(itemId, from, to);
+        List<PeriodDto> free = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+        for (PeriodDto period : busy) {
+            if (period.getStart().isAfter(freeFrom)) {
+                free.add(new PeriodDto(freeFrom, period.getStart()));
+            }
+            freeFrom = period.getEnd();
+        }
+        if (freeFrom.isBefore(to)) {
+            free.add(new PeriodDto(freeFrom, to));
+        }
+        return new ItemAvailabilityDto(itemId, from, to, busy, free);
     }
 
     @Override
     public ItemDto update(ItemDto itemDto, Integer ownerId) {
-        userService.findUserById(ownerId);
+        userService.checkUserExists(ownerId);
         Item item = itemRepository.findByIdAndOwnerId(itemDto.getId(), ownerId).orElseThrow(() -> throwNotFoundException(
                 "NotFoundException: Item with id= " + itemDto.getId() + " was not found."));
 
@@ -141,13 +202,16 @@ public class ItemServiceImpl implements ItemService {
             item.setAvailable(itemDto.getAvailable());
         }
         List<CommentDto> comments = getCommentsByItemId(item.getId());
+        Item updatedItem = itemRepository.save(item);
+        itemSearchIndex.put(updatedItem);
+        eventPublisher.publishEvent(new ItemChangedEvent(updatedItem.getId()));
 
-        return ItemMapper.mapToItemDto(itemRepository.save(item), comments);
+        return ItemMapper.mapToItemDto(updatedItem, comments);
     }
 
     @Override
     public void delete(Integer itemId, Integer ownerId) {
-        userService.findUserById(ownerId);
+        userService.checkUserExists(ownerId);
         Item item = itemRepository.findById(itemId).orElseThrow(() -> throwNotFoundException(
                 "NotFoundException: Item with id= " + itemId + " was not found."));
 
@@ -157,6 +221,8 @@ public class ItemServiceImpl implements ItemService {
         }
         try {
             itemRepository.deleteById(itemId);
+            itemSearchIndex.remove(itemId);
+            eventPublisher.publishEvent(new ItemChangedEvent(itemId));
         } catch (EmptyResultDataAccessException e) {
             log.error("NotFoundException: Item with id='{}' was not found.", itemId);
             throw e;
@@ -164,6 +230,7 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemDto> getItemsBySearchQuery(String text, Integer from, Integer size) {
         List<ItemDto> listItemDto = new ArrayList<>();
         if ((text != null) && (!text.isEmpty()) && (!text.isBlank())) {
@@ -172,11 +239,20 @@ public class ItemServiceImpl implements ItemService {
             Pagination pager = new Pagination(from, size);
             Pageable pageable = PageRequest.of(pager.getIndex(), pager.getPageSize());
 
-            Page<Item> page = itemRepository.getItemsBySearchQuery(text, pageable);
-            listItemDto.addAll(page.stream()
+            List<Item> items;
+            if (itemSearchIndex.isReady()) {
+                items = findAllByIdInOrder(searchIndex(text,
+                        pager.getIndex() * pager.getPageSize(), pager.getPageSize()));
+            } else {
+                items = itemRepository.getItemsBySearchQuery(text, pageable).getContent();
+            }
+            Map<Integer, List<CommentDto>> commentsByItemId = getCommentsByItemIds(items.stream()
+                    .map(Item::getId)
+                    .collect(toList()));
+            listItemDto.addAll(items.stream()
                     .map(item -> {
                         Integer itemId = item.getId();
-                        List<CommentDto> comments = getCommentsByItemId(itemId);
+                        List<CommentDto> comments = commentsByItemId.getOrDefault(itemId, Collections.emptyList());
                         return ItemMapper.mapToItemDto(item, comments);
                     })
                     .collect(toList()));
@@ -189,7 +265,7 @@ public class ItemServiceImpl implements ItemService {
 
     @Override
     public CommentDto createComment(String commentDtoText, Integer itemId, Integer userId) {
-        userService.findUserById(userId);
+        userService.checkUserExists(userId);
         Comment comment = new Comment();
         Booking booking = bookingService.getBookingWithUserBookedItem(itemId, userId);
         if (booking != null) {
@@ -201,10 +277,14 @@ public class ItemServiceImpl implements ItemService {
             log.error("ConflictException: User with id='{}' did not book item with id='{}'", userId, itemId);
             throw new BadRequestException("User with id= " + userId + " did not book item with id= " + itemId);
         }
-        return CommentMapper.mapToCommentDto(commentRepository.save(comment));
+        CommentDto commentDto = CommentMapper.mapToCommentDto(commentRepository.save(comment));
+        itemRepository.incrementVersion(itemId);
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
+        return commentDto;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<CommentDto> getCommentsByItemId(Integer itemId) {
         return commentRepository.findAllByItem_Id(itemId,
                         Sort.by(Sort.Direction.DESC, "created")).stream()
@@ -212,6 +292,49 @@ public class ItemServiceImpl implements ItemService {
                 .collect(toList());
     }
 
+    private Map<Integer, List<CommentDto>> getCommentsByItemIds(Collection<Integer> itemIds) {
+        return CommentMapper.mapToCommentDtoMap(commentRepository.findAllGroupedByItemId(itemIds));
+    }
+
+    private ItemDto loadItemView(Integer itemId) {
+        Item item = itemRepository.findById(itemId).orElseThrow(() -> throwNotFoundException(
+                "NotFoundException: Item with id= " + itemId + " was not found."));
+
+        BookingShortDto lastBooking = bookingService.getLastBooking(itemId);
+        BookingShortDto nextBooking = bookingService.getNextBooking(itemId);
+        return ItemMapper.toItemWithBookingDto(item, lastBooking, nextBooking, getCommentsByItemId(itemId));
+    }
+
+    /**
+     * Pages over the index matches whose items still exist, so a match the index has not dropped yet
+     * does not shorten the page or shift the following ones.
+     */
+    private List<Integer> searchIndex(String text, int offset, int limit) {
+        List<Integer> itemIds = new ArrayList<>();
+        int position = 0;
+        while (itemIds.size() < offset + limit) {
+            List<Integer> matches = itemSearchIndex.search(text, position, offset + limit - itemIds.size());
+            if (matches.isEmpty()) {
+                break;
+            }
+            position += matches.size();
+            Set<Integer> existing = itemRepository.findExistingIds(matches);
+            matches.stream()
+                    .filter(existing::contains)
+                    .forEach(itemIds::add);
+        }
+        return itemIds.subList(Math.min(offset, itemIds.size()), itemIds.size());
+    }
+
+    private List<Item> findAllByIdInOrder(List<Integer> itemIds) {
+        Map<Integer, Item> itemsById = new HashMap<>();
+        itemRepository.findAllById(itemIds).forEach(item -> itemsById.put(item.getId(), item));
+        return itemIds.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
+                .collect(toList());
+    }
+
     private NotFoundException throwNotFoundException(String message) {
         log.error(message);
         throw new NotFoundException(message);
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item;
+
+import java.util.Collection;
+
+/**
+ * Version bumps for items whose view changes without the item row itself changing.
+ */
+public interface ItemVersionRepository {
+    /**
+     * Marks the item view as changed when comments or bookings of the item change.
+     */
+    int incrementVersion(Integer itemId);
+
+    int incrementVersions(Collection<Integer> itemIds);
+}
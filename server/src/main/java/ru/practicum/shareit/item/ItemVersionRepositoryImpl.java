@@ -0,0 +1,44 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.List;
+
+public class ItemVersionRepositoryImpl implements ItemVersionRepository {
+    private static final String INCREMENT_VERSIONS = "update Item i set i.version = i.version + 1 " +
+            "where i.id in :itemIds";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int incrementVersion(Integer itemId) {
+        return incrementVersions(List.of(itemId));
+    }
+
+    /**
+     * Pending changes are flushed before the bulk update. Items already loaded in the persistence context
+     * are refreshed after it, so a later change to them is checked against the new version; the rest of
+     * the context is left as it is.
+     */
+    @Override
+    @Transactional
+    public int incrementVersions(Collection<Integer> itemIds) {
+        entityManager.flush();
+        int updated = entityManager.createQuery(INCREMENT_VERSIONS)
+                .setParameter("itemIds", itemIds)
+                .executeUpdate();
+        for (Integer itemId : itemIds) {
+            Item item = entityManager.getReference(Item.class, itemId);
+            if (entityManager.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(item)) {
+                entityManager.refresh(item);
+            }
+        }
+        return updated;
+    }
+}
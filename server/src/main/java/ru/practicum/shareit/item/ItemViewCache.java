@@ -0,0 +1,87 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserChangedEvent;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.LruCache;
+import ru.practicum.shareit.util.PrimaryReads;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Assembled item views: the item with its last and next booking and its comments.
+ * <p>
+ * Entries are dropped on {@link ItemChangedEvent} and {@link UserChangedEvent}. The last and next bookings
+ * depend on the current time, so an entry also expires when its next booking starts, and in any case after
+ * {@code shareit.item-cache.ttl} milliseconds.
+ */
+@Component
+public class ItemViewCache {
+    static final String CACHE_NAME = "item-views";
+
+    private final LruCache<Integer, ItemDto> views;
+
+    @Autowired
+    public ItemViewCache(MeterRegistry meterRegistry, PrimaryReads primaryReads,
+                         @Value("${shareit.item-cache.enabled:true}") boolean enabled,
+                         @Value("${shareit.item-cache.ttl:60000}") long ttl,
+                         @Value("${shareit.item-cache.max-entries:10000}") int maxEntries) {
+        this(meterRegistry, primaryReads, enabled, ttl, maxEntries, Clock.systemDefaultZone());
+    }
+
+    ItemViewCache(MeterRegistry meterRegistry, PrimaryReads primaryReads, boolean enabled, long ttl,
+                  int maxEntries, Clock clock) {
+        Duration timeToLive = Duration.ofMillis(ttl);
+        this.views = new LruCache<>(meterRegistry, primaryReads, CACHE_NAME,
+                "Share of item views answered from the cache", enabled, maxEntries, ItemViewCache::copy,
+                view -> expiresAt(view, timeToLive, clock), clock);
+    }
+
+    /**
+     * Returns a copy of the owner's view of the item, so callers may change it freely.
+     */
+    public ItemDto get(Integer itemId, Supplier<ItemDto> loader) {
+        return views.get(itemId, loader);
+    }
+
+    @EventListener
+    public void onItemChanged(ItemChangedEvent event) {
+        views.evict(event.getItemId());
+    }
+
+    /**
+     * Views show the owner, comment author names and other users' bookings, and deleting a user removes their
+     * bookings and comments too. User changes are rare next to item reads, so all views are dropped instead of
+     * tracking which of them mention the user.
+     */
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        views.clear();
+    }
+
+    private static Instant expiresAt(ItemDto view, Duration timeToLive, Clock clock) {
+        Instant expiresAt = clock.instant().plus(timeToLive);
+        if (view.getNextBooking() == null) {
+            return expiresAt;
+        }
+        Instant rollover = view.getNextBooking().getStartTime().atZone(clock.getZone()).toInstant();
+        return rollover.isBefore(expiresAt) ? rollover : expiresAt;
+    }
+
+    private static ItemDto copy(ItemDto view) {
+        User owner = view.getOwner() == null ? null
+                : new User(view.getOwner().getId(), view.getOwner().getName(), view.getOwner().getEmail());
+        return new ItemDto(view.getId(), view.getName(), view.getDescription(), view.getAvailable(),
+                owner, view.getRequestId(), view.getLastBooking(), view.getNextBooking(),
+                view.getComments() == null ? null : new ArrayList<>(view.getComments()));
+    }
+}
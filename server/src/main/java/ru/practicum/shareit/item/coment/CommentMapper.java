@@ -4,6 +4,12 @@ import lombok.experimental.UtilityClass;
 import ru.practicum.shareit.item.coment.dto.CommentDto;
 import ru.practicum.shareit.item.coment.model.Comment;
 
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
 @UtilityClass
 public class CommentMapper {
     public CommentDto mapToCommentDto(Comment comment) {
@@ -15,4 +21,11 @@ public class CommentMapper {
                 comment.getCreated()
         );
     }
+
+    public Map<Integer, List<CommentDto>> mapToCommentDtoMap(Map<Integer, List<Comment>> commentsByItemId) {
+        return commentsByItemId.entrySet().stream()
+                .collect(toMap(Map.Entry::getKey, entry -> entry.getValue().stream()
+                        .map(CommentMapper::mapToCommentDto)
+                        .collect(toList())));
+    }
 }
@@ -1,11 +1,33 @@
 package ru.practicum.shareit.item.coment;
 
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.shareit.item.coment.model.Comment;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.groupingBy;
 
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
+    @EntityGraph(attributePaths = "author")
     List<Comment> findAllByItem_Id(Integer itemId, Sort sort);
+
+    @EntityGraph(attributePaths = "author")
+    List<Comment> findAllByItem_IdIn(Collection<Integer> itemIds, Sort sort);
+
+    /**
+     * Loads the comments of all given items with a single query and groups them by item id.
+     * Items without comments are absent from the returned map.
+     */
+    default Map<Integer, List<Comment>> findAllGroupedByItemId(Collection<Integer> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return findAllByItem_IdIn(itemIds, Sort.by(Sort.Direction.DESC, "created")).stream()
+                .collect(groupingBy(comment -> comment.getItem().getId()));
+    }
 }
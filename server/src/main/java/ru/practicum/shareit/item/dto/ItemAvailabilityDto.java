@@ -0,0 +1,26 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.booking.dto.PeriodDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Busy and free periods of an item within {@code [from, to)}. Busy periods are merged approved and waiting
+ * bookings, free periods are the gaps between them. Both are ordered by start and clipped to the range.
+ */
+@Data
+@AllArgsConstructor
+public class ItemAvailabilityDto {
+    private Integer itemId;
+
+    private LocalDateTime from;
+
+    private LocalDateTime to;
+
+    private List<PeriodDto> busy;
+
+    private List<PeriodDto> free;
+}
@@ -24,9 +24,12 @@ public class Item {
 
     private Boolean available;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id")
     private User owner;
 
     private Integer requestId;
+
+    @Version
+    private Integer version;
 }
@@ -0,0 +1,83 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of item ids backed by a plain int array, so a posting list costs
+ * four bytes per entry instead of a boxed Integer and a list node.
+ */
+class IntPostingList {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int size;
+
+    void add(int id) {
+        if (size > 0 && ids[size - 1] < id) {
+            ensureCapacity();
+            ids[size++] = id;
+            return;
+        }
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return;
+        }
+        int insertAt = -position - 1;
+        ensureCapacity();
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+    }
+
+    void remove(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+        if (size > INITIAL_CAPACITY && size < ids.length / 4) {
+            ids = Arrays.copyOf(ids, ids.length / 2);
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Keeps only the ids of {@code candidates} that are also present in this list.
+     */
+    int[] retainAll(int[] candidates) {
+        int[] result = new int[Math.min(candidates.length, size)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < candidates.length && j < size) {
+            if (candidates[i] == ids[j]) {
+                result[count++] = candidates[i];
+                i++;
+                j++;
+            } else if (candidates[i] < ids[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private void ensureCapacity() {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserChangedEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over item names and descriptions.
+ * <p>
+ * Answers the same question as {@link ItemRepository#getItemsBySearchQuery}: an item matches when its name
+ * contains the text, or when it is available and its description contains the text. Trigram posting lists
+ * narrow the candidates, which are then checked against the indexed text, so results are exact.
+ * <p>
+ * The index is off unless {@code shareit.search.index.enabled=true}. It is built from the database when the
+ * application starts and is kept up to date by {@link ru.practicum.shareit.item.ItemServiceImpl}, and drops the
+ * items of a deleted user on {@link UserChangedEvent}; changes are applied when the surrounding transaction commits, so a rolled-back write never shows up in searches.
+ * <p>
+ * If the number of items exceeds {@code shareit.search.index.max-items} the index drops its data and searches
+ * go back to SQL. It stays off until {@link #rebuild()} runs again, which happens on the next start: raise the
+ * limit before restarting, otherwise the rebuild stops at the same point.
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final int maxItems;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IntPostingList> nameGrams = new HashMap<>();
+    private final Map<Long, IntPostingList> descriptionGrams = new HashMap<>();
+    private final NavigableMap<Integer, IndexedItem> items = new TreeMap<>();
+    private volatile boolean ready;
+
+    @Autowired
+    public ItemSearchIndex(ItemRepository itemRepository,
+                           @Value("${shareit.search.index.enabled:false}") boolean enabled,
+                           @Value("${shareit.search.index.max-items:100000}") int maxItems) {
+        this.itemRepository = itemRepository;
+        this.enabled = enabled;
+        this.maxItems = maxItems;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            clear();
+            ready = true;
+            Pageable pageable = PageRequest.of(0, LOAD_BATCH_SIZE, Sort.by(Sort.Direction.ASC, "id"));
+            Page<Item> page;
+            do {
+                page = itemRepository.findAll(pageable);
+                page.forEach(item -> putInternal(item.getId(), IndexedItem.of(item)));
+                pageable = page.nextPageable();
+            } while (ready && page.hasNext());
+            log.info("Item search index built: {} items, {} name and {} description trigrams",
+                    items.size(), nameGrams.size(), descriptionGrams.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the item as it is now, once the surrounding transaction commits.
+     */
+    public void put(Item item) {
+        if (!ready) {
+            return;
+        }
+        Integer itemId = item.getId();
+        IndexedItem indexed = IndexedItem.of(item);
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeInternal(itemId);
+                putInternal(itemId, indexed);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Drops the item once the surrounding transaction commits.
+     */
+    public void remove(Integer itemId) {
+        if (!ready) {
+            return;
+        }
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeInternal(itemId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Drops the items of a deleted user once the surrounding transaction commits, the database removes them
+     * together with the user.
+     */
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (!ready || !event.isDeleted()) {
+            return;
+        }
+        Integer ownerId = event.getUserId();
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                List<Integer> itemIds = new ArrayList<>();
+                items.forEach((itemId, indexed) -> {
+                    if (ownerId.equals(indexed.ownerId)) {
+                        itemIds.add(itemId);
+                    }
+                });
+                itemIds.forEach(this::removeInternal);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Returns ids of matching items in ascending order, skipping {@code offset} matches.
+     */
+    public List<Integer> search(String text, int offset, int limit) {
+        String query = text.toLowerCase();
+        List<Integer> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int skipped = 0;
+            for (int id : candidates(query)) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                if (!items.get(id).matches(query)) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    result.add(id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    private int[] candidates(String query) {
+        if (query.length() < GRAM_LENGTH) {
+            return items.keySet().stream().mapToInt(Integer::intValue).toArray();
+        }
+        return union(intersect(nameGrams, query), intersect(descriptionGrams, query));
+    }
+
+    private void putInternal(Integer itemId, IndexedItem indexed) {
+        if (!ready) {
+            return;
+        }
+        if (items.size() >= maxItems) {
+            log.warn("Item search index exceeded {} items and was disabled until the next start, " +
+                    "search falls back to SQL", maxItems);
+            clear();
+            ready = false;
+            return;
+        }
+        items.put(itemId, indexed);
+        for (long gram : grams(indexed.name)) {
+            nameGrams.computeIfAbsent(gram, key -> new IntPostingList()).add(itemId);
+        }
+        for (long gram : grams(indexed.description)) {
+            descriptionGrams.computeIfAbsent(gram, key -> new IntPostingList()).add(itemId);
+        }
+    }
+
+    private void removeInternal(Integer itemId) {
+        IndexedItem indexed = items.remove(itemId);
+        if (indexed == null) {
+            return;
+        }
+        removeGrams(nameGrams, indexed.name, itemId);
+        removeGrams(descriptionGrams, indexed.description, itemId);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void clear() {
+        items.clear();
+        nameGrams.clear();
+        descriptionGrams.clear();
+    }
+
+    private static void removeGrams(Map<Long, IntPostingList> index, String text, int itemId) {
+        for (long gram : grams(text)) {
+            IntPostingList postings = index.get(gram);
+            if (postings != null) {
+                postings.remove(itemId);
+                if (postings.isEmpty()) {
+                    index.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static int[] intersect(Map<Long, IntPostingList> index, String query) {
+        List<IntPostingList> lists = new ArrayList<>();
+        for (long gram : grams(query)) {
+            IntPostingList postings = index.get(gram);
+            if (postings == null) {
+                return new int[0];
+            }
+            lists.add(postings);
+        }
+        lists.sort(Comparator.comparingInt(IntPostingList::size));
+        int[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = lists.get(i).retainAll(result);
+        }
+        return result;
+    }
+
+    private static int[] union(int[] first, int[] second) {
+        int[] result = new int[first.length + second.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length || j < second.length) {
+            int next;
+            if (j == second.length || (i < first.length && first[i] < second[j])) {
+                next = first[i++];
+            } else if (i == first.length || second[j] < first[i]) {
+                next = second[j++];
+            } else {
+                next = first[i++];
+                j++;
+            }
+            result[count++] = next;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static Set<Long> grams(String text) {
+        Set<Long> grams = new TreeSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private static class IndexedItem {
+        private final String name;
+        private final String description;
+        private final boolean available;
+        private final Integer ownerId;
+
+        IndexedItem(String name, String description, boolean available, Integer ownerId) {
+            this.name = name;
+            this.description = description;
+            this.available = available;
+            this.ownerId = ownerId;
+        }
+
+        static IndexedItem of(Item item) {
+            return new IndexedItem(item.getName().toLowerCase(),
+                    item.getDescription() != null ? item.getDescription().toLowerCase() : "",
+                    Boolean.TRUE.equals(item.getAvailable()),
+                    item.getOwner() != null ? item.getOwner().getId() : null);
+        }
+
+        boolean matches(String query) {
+            return name.contains(query) || (available && description.contains(query));
+        }
+    }
+}
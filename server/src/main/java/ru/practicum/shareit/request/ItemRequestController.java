@@ -3,6 +3,7 @@ package ru.practicum.shareit.request;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import javax.validation.Valid;
@@ -33,8 +34,12 @@ public class ItemRequestController {
     }
 
     @GetMapping("/{requestId}")
-    public ItemRequestDto getItemRequestById(@PathVariable("requestId") Integer itemRequestId, @RequestHeader(USER_ID_HEADER) Integer userId) {
+    public ItemRequestDto getItemRequestById(@PathVariable("requestId") Integer itemRequestId, @RequestHeader(USER_ID_HEADER) Integer userId,
+                                             WebRequest webRequest) {
         log.info("Получен GET-запрос к эндпоинту: '/requests' на получение запроса с ID={}", itemRequestId);
+        if (webRequest.checkNotModified(service.getItemRequestETag(itemRequestId, userId))) {
+            return null;
+        }
         return service.getItemRequestById(itemRequestId, userId);
     }
 
@@ -5,6 +5,7 @@ import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.UserMapper;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
@@ -22,12 +23,24 @@ public class ItemRequestMapper {
                 itemsListByRequest);
     }
 
+    public ItemRequestDto toItemRequestDto(ItemRequestRepository.ItemRequestRow itemRequest,
+                                           List<ItemDto> itemsListByRequest) {
+        return new ItemRequestDto(
+                itemRequest.getId(),
+                itemRequest.getDescription(),
+                new UserDto(itemRequest.getRequesterId(), itemRequest.getRequesterName(),
+                        itemRequest.getRequesterEmail()),
+                itemRequest.getCreated(),
+                itemsListByRequest);
+    }
+
     public ItemRequest toItemRequest(ItemRequestDto itemRequestDto, User user, LocalDateTime created) {
         return new ItemRequest(
                 null,
                 itemRequestDto.getDescription(),
                 user,
-                created
+                created,
+                null
         );
     }
 }
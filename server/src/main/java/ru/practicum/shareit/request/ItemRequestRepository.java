@@ -1,17 +1,42 @@
 package ru.practicum.shareit.request;
 
-import org.springframework.data.domain.Page;
+import lombok.Value;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRequestRepository extends PagingAndSortingRepository<ItemRequest, Integer> {
-    List<ItemRequest> findAllByrequesterId(Integer requesterId, Sort sort);
+    String ITEM_REQUEST_ROW_SELECT = "select new ru.practicum.shareit.request.ItemRequestRepository$ItemRequestRow(" +
+            "r.id, r.description, r.created, u.id, u.name, u.email) from ItemRequest r join r.requester u";
 
-    Page<ItemRequest> findAllByrequesterIdNot(Integer userId, Pageable pageable);
+    @Override
+    @EntityGraph(attributePaths = "requester")
+    Optional<ItemRequest> findById(Integer id);
 
-    List<ItemRequest> findAllByrequesterIdNotOrderByCreatedDesc(Integer userId);
+    @Query(ITEM_REQUEST_ROW_SELECT + " where u.id = :requesterId order by r.created desc")
+    List<ItemRequestRow> findRowsByRequesterId(@Param("requesterId") Integer requesterId);
+
+    @Query(ITEM_REQUEST_ROW_SELECT + " where u.id <> :userId order by r.created desc")
+    Slice<ItemRequestRow> findRowsByRequesterIdNot(@Param("userId") Integer userId, Pageable pageable);
+
+    /**
+     * Read-only request columns with the requester, for request lists.
+     */
+    @Value
+    class ItemRequestRow {
+        Integer id;
+        String description;
+        LocalDateTime created;
+        Integer requesterId;
+        String requesterName;
+        String requesterEmail;
+    }
 }
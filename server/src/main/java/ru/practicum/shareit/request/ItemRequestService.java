@@ -9,6 +9,8 @@ public interface ItemRequestService {
 
     ItemRequestDto getItemRequestById(Integer itemRequestId, Integer userId);
 
+    String getItemRequestETag(Integer itemRequestId, Integer userId);
+
     List<ItemRequestDto> getOwnItemRequests(Integer requesterId);
 
     List<ItemRequestDto> getAllItemRequests(Integer userId, Integer from, Integer size);
@@ -2,11 +2,12 @@ package ru.practicum.shareit.request;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.ItemRepository;
@@ -21,11 +22,14 @@ import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.util.Pagination;
 
-import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
+import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 
 @Service
@@ -62,8 +66,9 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemRequestDto getItemRequestById(Integer itemRequestId, Integer userId) {
-        userService.findUserById(userId);
+        userService.checkUserExists(userId);
 
         ItemRequest itemRequest = repository.findById(itemRequestId)
                 .orElseThrow(() -> throwNotFoundException(
@@ -74,34 +79,59 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         return ItemRequestMapper.toItemRequestDto(itemRequest, itemsListByRequest);
     }
 
+    /**
+     * Request views embed the items created for the request, so their count and versions are part of the tag.
+     */
     @Override
+    @Transactional(readOnly = true)
+    public String getItemRequestETag(Integer itemRequestId, Integer userId) {
+        userService.checkUserExists(userId);
+
+        ItemRequest itemRequest = repository.findById(itemRequestId)
+                .orElseThrow(() -> throwNotFoundException(
+                        "NotFoundException: request with id=" + itemRequestId + " was not found."));
+        ItemRepository.ItemsVersion items = itemRepository.getItemsVersionByRequestId(itemRequestId);
+
+        return "request-" + itemRequestId + "-v" + itemRequest.getVersion() +
+                "-items-" + items.getCount() + "-" + items.getMaxId() + "-v" + items.getVersionSum();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDto> getOwnItemRequests(Integer requesterId) {
-        userService.findUserById(requesterId);
+        userService.checkUserExists(requesterId);
 
-        return repository.findAllByrequesterId(requesterId,
-                        Sort.by(Sort.Direction.DESC, "created")).stream()
+        List<ItemRequestRepository.ItemRequestRow> itemRequests = repository.findRowsByRequesterId(requesterId);
+        Map<Integer, List<ItemDto>> itemsByRequestId = getItemsByRequestIds(itemRequests.stream()
+                .map(ItemRequestRepository.ItemRequestRow::getId)
+                .collect(toList()));
+
+        return itemRequests.stream()
                 .map(itemRequest -> {
                     Integer id = itemRequest.getId();
-                    List<ItemDto> itemsListByRequest = getItemsByRequestId(id);
+                    List<ItemDto> itemsListByRequest = itemsByRequestId.getOrDefault(id, Collections.emptyList());
                     return ItemRequestMapper.toItemRequestDto(itemRequest, itemsListByRequest);
                 })
                 .collect(toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDto> getAllItemRequests(Integer userId, Integer from, Integer size) {
-        userService.findUserById(userId);
+        userService.checkUserExists(userId);
 
         List<ItemRequestDto> listItemRequestDto = new ArrayList<>();
-        Sort sort = Sort.by(Sort.Direction.DESC, "created");
         Pagination pager = new Pagination(from, size);
-        Pageable pageable = PageRequest.of(pager.getIndex(), pager.getPageSize(), sort);
+        Pageable pageable = PageRequest.of(pager.getIndex(), pager.getPageSize());
 
-        Page<ItemRequest> page = repository.findAllByrequesterIdNot(userId, pageable);
+        Slice<ItemRequestRepository.ItemRequestRow> page = repository.findRowsByRequesterIdNot(userId, pageable);
+        Map<Integer, List<ItemDto>> itemsByRequestId = getItemsByRequestIds(page.stream()
+                .map(ItemRequestRepository.ItemRequestRow::getId)
+                .collect(toList()));
         listItemRequestDto.addAll(page.stream()
                 .map(itemRequest -> {
                     Integer id = itemRequest.getId();
-                    List<ItemDto> itemsListByRequest = getItemsByRequestId(id);
+                    List<ItemDto> itemsListByRequest = itemsByRequestId.getOrDefault(id, Collections.emptyList());
                     return ItemRequestMapper.toItemRequestDto(itemRequest, itemsListByRequest);
                 })
                 .collect(toList()));
@@ -119,17 +149,30 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     }
 
     private List<ItemDto> getItemsByRequestId(Integer requestId) {
-        return itemRepository.findAllByRequestId(requestId,
-                        Sort.by(Sort.Direction.DESC, "id")).stream()
-                .map(item -> {
-                    Integer itemId = item.getId();
-                    List<CommentDto> comments = commentRepository.findAllByItem_Id(itemId,
-                                    Sort.by(Sort.Direction.DESC, "created")).stream()
-                            .map(CommentMapper::mapToCommentDto)
-                            .collect(toList());
-
-                    return ItemMapper.mapToItemDto(item, comments);
-                })
+        List<ItemRepository.ItemRow> items = itemRepository.findRowsByRequestId(requestId,
+                Sort.by(Sort.Direction.DESC, "id"));
+        return toItemDtoList(items);
+    }
+
+    private Map<Integer, List<ItemDto>> getItemsByRequestIds(Collection<Integer> requestIds) {
+        if (requestIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<ItemRepository.ItemRow> items = itemRepository.findRowsByRequestIdIn(requestIds,
+                Sort.by(Sort.Direction.DESC, "id"));
+        return toItemDtoList(items).stream()
+                .collect(groupingBy(ItemDto::getRequestId));
+    }
+
+    private List<ItemDto> toItemDtoList(List<ItemRepository.ItemRow> items) {
+        Map<Integer, List<CommentDto>> commentsByItemId = CommentMapper.mapToCommentDtoMap(
+                commentRepository.findAllGroupedByItemId(items.stream()
+                        .map(ItemRepository.ItemRow::getId)
+                        .collect(toList())));
+
+        return items.stream()
+                .map(item -> ItemMapper.mapToItemDto(item,
+                        commentsByItemId.getOrDefault(item.getId(), Collections.emptyList())))
                 .collect(toList());
     }
 }
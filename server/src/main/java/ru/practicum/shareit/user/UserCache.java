@@ -0,0 +1,44 @@
+package ru.practicum.shareit.user;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.util.LruCache;
+import ru.practicum.shareit.util.PrimaryReads;
+
+import java.util.function.Supplier;
+
+/**
+ * Users by id. Almost every service call starts by looking up the current user,
+ * so the lookup is answered from memory until the user is updated or deleted.
+ */
+@Component
+public class UserCache {
+    static final String CACHE_NAME = "users";
+
+    private final LruCache<Integer, UserDto> users;
+
+    public UserCache(MeterRegistry meterRegistry, PrimaryReads primaryReads,
+                     @Value("${shareit.user-cache.enabled:true}") boolean enabled,
+                     @Value("${shareit.user-cache.max-entries:10000}") int maxEntries) {
+        this.users = new LruCache<>(meterRegistry, primaryReads, CACHE_NAME,
+                "Share of user lookups answered from the cache", enabled, maxEntries, UserCache::copy);
+    }
+
+    public UserDto get(Integer userId, Supplier<UserDto> loader) {
+        return users.get(userId, loader);
+    }
+
+    public boolean contains(Integer userId) {
+        return users.contains(userId);
+    }
+
+    public void evict(Integer userId) {
+        users.evict(userId);
+    }
+
+    private static UserDto copy(UserDto user) {
+        return new UserDto(user.getId(), user.getName(), user.getEmail());
+    }
+}
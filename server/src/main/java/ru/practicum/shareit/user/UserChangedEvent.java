@@ -0,0 +1,15 @@
+package ru.practicum.shareit.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when a user is updated, or deleted together with their items, bookings and comments
+ * ({@code deleted} is then {@code true}).
+ */
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+    private final Integer userId;
+    private final boolean deleted;
+}
@@ -1,12 +1,22 @@
 package ru.practicum.shareit.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.List;
 
-public interface UserRepository extends JpaRepository<User, Integer> {
+public interface UserRepository extends JpaRepository<User, Integer>, UserVersionRepository {
 
     List<User> findByEmail(String email);
+
+    /**
+     * Derived exists query ({@code select ... limit 1}); the inherited {@code existsById} runs a count.
+     */
+    boolean existsUserById(Integer id);
+
+    @Query("select new ru.practicum.shareit.user.dto.UserDto(u.id, u.name, u.email) from User u order by u.id")
+    List<UserDto> findAllUserDtos();
 }
 
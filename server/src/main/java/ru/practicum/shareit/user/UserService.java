@@ -14,4 +14,6 @@ public interface UserService {
     List<UserDto> getUsers();
 
     UserDto findUserById(Integer userId);
+
+    void checkUserExists(Integer userId);
 }
\ No newline at end of file
@@ -2,27 +2,32 @@ package ru.practicum.shareit.user;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 
-import javax.transaction.Transactional;
 import java.util.List;
 
-import static java.util.stream.Collectors.toList;
-
 @Service
 @Slf4j
 @Transactional
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository,
+                           UserCache userCache,
+                           ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -68,6 +73,9 @@ public class UserServiceImpl implements UserService {
                 throw new ConflictException("User with email = " + userDto.getEmail() + " already exists");
             }
         }
+        userRepository.incrementVersion(id);
+        userCache.evict(id);
+        eventPublisher.publishEvent(new UserChangedEvent(id, false));
         return UserMapper.mapToUserDto(userRepository.save(user));
     }
 
@@ -79,19 +87,30 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.deleteById(userId);
+        userCache.evict(userId);
+        eventPublisher.publishEvent(new UserChangedEvent(userId, true));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserDto> getUsers() {
-        return userRepository.findAll().stream()
-                .map(UserMapper::mapToUserDto)
-                .collect(toList());
+        return userRepository.findAllUserDtos();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDto findUserById(Integer userId) {
-        return UserMapper.mapToUserDto(userRepository.findById(userId).orElseThrow(() -> throwNotFoundException(
-                "NotFoundException: User with id= " + userId + " was not found.")));
+        return userCache.get(userId, () -> UserMapper.mapToUserDto(userRepository.findById(userId)
+                .orElseThrow(() -> throwNotFoundException(
+                        "NotFoundException: User with id= " + userId + " was not found."))));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void checkUserExists(Integer userId) {
+        if (!userCache.contains(userId) && !userRepository.existsUserById(userId)) {
+            throwNotFoundException("NotFoundException: User with id= " + userId + " was not found.");
+        }
     }
 
     private void validationUserCreation(UserDto userDto) {
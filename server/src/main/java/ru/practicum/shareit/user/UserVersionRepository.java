@@ -0,0 +1,8 @@
+package ru.practicum.shareit.user;
+
+/**
+ * Version of the user row, kept outside the entity. Item ETags use it for the owner and the comment authors.
+ */
+public interface UserVersionRepository {
+    int incrementVersion(Integer userId);
+}
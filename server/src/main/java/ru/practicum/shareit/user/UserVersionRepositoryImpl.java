@@ -0,0 +1,21 @@
+package ru.practicum.shareit.user;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+public class UserVersionRepositoryImpl implements UserVersionRepository {
+    private static final String INCREMENT_VERSION = "update users set version = version + 1 where id = :userId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int incrementVersion(Integer userId) {
+        return entityManager.createNativeQuery(INCREMENT_VERSION)
+                .setParameter("userId", userId)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,243 @@
+package ru.practicum.shareit.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded LRU cache for values assembled in service calls, with hit, miss, put and eviction metrics
+ * under {@code cache.*} tagged with the cache name.
+ * <p>
+ * Values are copied on the way in and out, so callers may change what they get, also before the surrounding
+ * transaction commits and the loaded value is stored. A value loaded inside a
+ * transaction is stored only after it commits, and a load that overlaps an eviction is not stored at all.
+ * Misses are loaded from the primary even in read-only transactions, never from a lagging replica.
+ */
+public class LruCache<K, V> {
+    private final boolean enabled;
+    private final int maxEntries;
+    private final UnaryOperator<V> copier;
+    private final Function<V, Instant> expiry;
+    private final Clock clock;
+    private final PrimaryReads primaryReads;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long generation;
+
+    public LruCache(MeterRegistry meterRegistry, PrimaryReads primaryReads, String name, String description,
+                    boolean enabled, int maxEntries, UnaryOperator<V> copier) {
+        this(meterRegistry, primaryReads, name, description, enabled, maxEntries, copier, value -> null,
+                Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param expiry instant at which a freshly stored value stops being valid, {@code null} for never
+     */
+    public LruCache(MeterRegistry meterRegistry, PrimaryReads primaryReads, String name, String description,
+                    boolean enabled, int maxEntries, UnaryOperator<V> copier, Function<V, Instant> expiry,
+                    Clock clock) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.copier = copier;
+        this.expiry = expiry;
+        this.clock = clock;
+        this.primaryReads = primaryReads;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        new Metrics(this, name, description).bindTo(meterRegistry);
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.isValidAt(clock.instant())) {
+                hits.incrementAndGet();
+                return copier.apply(entry.value);
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            loadGeneration = generation;
+        }
+        V value = primaryReads.get(loader);
+        V stored = copier.apply(value);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(key, stored, loadGeneration);
+                }
+            });
+        } else {
+            put(key, stored, loadGeneration);
+        }
+        return value;
+    }
+
+    /**
+     * Tells whether a valid value is cached, without loading it. Counts as a hit or a miss.
+     */
+    public synchronized boolean contains(K key) {
+        if (!enabled) {
+            return false;
+        }
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.isValidAt(clock.instant())) {
+            hits.incrementAndGet();
+            return true;
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Drops the value now and once more when the surrounding transaction completes, so a load that read
+     * the old rows before the commit cannot put it back.
+     */
+    public void evict(K key) {
+        evictNow(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops every value, now and once more when the surrounding transaction completes.
+     */
+    public void clear() {
+        clearNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    clearNow();
+                }
+            });
+        }
+    }
+
+    private synchronized void evictNow(K key) {
+        generation++;
+        if (entries.remove(key) != null) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    private synchronized void clearNow() {
+        generation++;
+        evictions.addAndGet(entries.size());
+        entries.clear();
+    }
+
+    private synchronized void put(K key, V value, long loadGeneration) {
+        if (loadGeneration != generation) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, expiry.apply(value)));
+        puts.incrementAndGet();
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final Instant expiresAt;
+
+        Entry(V value, Instant expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isValidAt(Instant now) {
+            return expiresAt == null || now.isBefore(expiresAt);
+        }
+    }
+
+    private static class Metrics extends CacheMeterBinder<LruCache<?, ?>> {
+        private final String description;
+
+        Metrics(LruCache<?, ?> cache, String name, String description) {
+            super(cache, name, Tags.empty());
+            this.description = description;
+        }
+
+        @Override
+        protected Long size() {
+            LruCache<?, ?> cache = getCache();
+            return cache == null ? null : (long) cache.size();
+        }
+
+        @Override
+        protected long hitCount() {
+            LruCache<?, ?> cache = getCache();
+            return cache == null ? 0 : cache.hits.get();
+        }
+
+        @Override
+        protected Long missCount() {
+            LruCache<?, ?> cache = getCache();
+            return cache == null ? null : cache.misses.get();
+        }
+
+        @Override
+        protected Long evictionCount() {
+            LruCache<?, ?> cache = getCache();
+            return cache == null ? null : cache.evictions.get();
+        }
+
+        @Override
+        protected long putCount() {
+            LruCache<?, ?> cache = getCache();
+            return cache == null ? 0 : cache.puts.get();
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+            Gauge.builder("cache.hit.ratio", this, metrics -> {
+                        long hitCount = metrics.hitCount();
+                        Long missCount = metrics.missCount();
+                        long total = hitCount + (missCount == null ? 0 : missCount);
+                        return total == 0 ? 0 : (double) hitCount / total;
+                    })
+                    .tags(getTagsWithCacheName())
+                    .description(description)
+                    .register(registry);
+        }
+    }
+}
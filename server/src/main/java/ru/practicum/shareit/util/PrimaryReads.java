@@ -0,0 +1,52 @@
+package ru.practicum.shareit.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs reads that must not see a lagging replica, such as loads that fill in-process caches.
+ * <p>
+ * A read-only transaction may already hold a replica connection, so inside one the read gets a new read-write
+ * transaction, which {@link ReplicaRoutingDataSource} sends to the primary. Without a replica, or outside
+ * read-only transactions, the read runs in place.
+ */
+@Component
+public class PrimaryReads {
+    static final String TRANSACTION_NAME = "primary-read";
+
+    private final TransactionOperations primaryTransaction;
+
+    @Autowired
+    public PrimaryReads(PlatformTransactionManager transactionManager,
+                        @Value("${shareit.datasource.replica.url:}") String replicaUrl) {
+        this(replicaUrl.isEmpty() ? TransactionOperations.withoutTransaction()
+                : newPrimaryTransaction(transactionManager));
+    }
+
+    public PrimaryReads(TransactionOperations primaryTransaction) {
+        this.primaryTransaction = primaryTransaction;
+    }
+
+    public <T> T get(Supplier<T> read) {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return read.get();
+        }
+        return primaryTransaction.execute(status -> read.get());
+    }
+
+    private static TransactionOperations newPrimaryTransaction(PlatformTransactionManager transactionManager) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.setReadOnly(false);
+        transaction.setName(TRANSACTION_NAME);
+        return transaction;
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.shareit.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Opt-in read replica ({@code shareit.datasource.replica.url}). Read-only transactions run on the replica,
+ * all other work on the primary configured by {@code spring.datasource.*}. The primary pool takes the
+ * {@code spring.datasource.hikari.*} settings, the replica pool {@code shareit.datasource.replica.hikari.*}.
+ * The replica user and password default to the primary ones. A user's reads stay on the primary for
+ * {@code shareit.datasource.replica.sticky-primary} milliseconds after their last write.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnExpression("!'${shareit.datasource.replica.url:}'.isEmpty()")
+public class ReplicaDataSourceConfig {
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("shareit.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${shareit.datasource.replica.url}") String url,
+                                              @Value("${shareit.datasource.replica.username:}") String username,
+                                              @Value("${shareit.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username.isEmpty() ? properties.determineUsername() : username)
+                .password(password.isEmpty() ? properties.determinePassword() : password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        log.info("Read-only transactions are routed to the replica {}", url);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+                                 @Value("${shareit.datasource.replica.sticky-primary:5000}") long stickyPrimary) {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(stickyPrimary);
+        routingDataSource.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.PRIMARY, primaryDataSource,
+                ReplicaRoutingDataSource.REPLICA, replicaDataSource));
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.util;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends connections of read-only transactions to the replica and everything else to the primary.
+ * <p>
+ * The key is read when a connection is requested, so the routing data source has to sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction manager asks for a
+ * connection before the read-only flag of the new transaction is published. A transaction keeps the connection
+ * it got, so a read that must see the primary runs in a transaction of its own, see {@link PrimaryReads}.
+ * <p>
+ * The replica lags behind the primary. To let users read their own writes, read-only transactions of a request
+ * whose {@code X-Sharer-User-Id} committed a read-write transaction within the sticky window also go to the
+ * primary. Reads made through {@link PrimaryReads} do not count as writes. Other users may still see the old
+ * rows until the replica catches up. The window is tracked per server instance.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final int MAX_TRACKED_USERS = 10_000;
+
+    private final Duration stickyPrimary;
+    private final Clock clock;
+    private final Map<String, Instant> primaryUntil = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(long stickyPrimaryMillis) {
+        this(Duration.ofMillis(stickyPrimaryMillis), Clock.systemUTC());
+    }
+
+    ReplicaRoutingDataSource(Duration stickyPrimary, Clock clock) {
+        this.stickyPrimary = stickyPrimary;
+        this.clock = clock;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String userId = currentUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (userId != null && !stickyPrimary.isZero()
+                    && TransactionSynchronizationManager.isSynchronizationActive()
+                    && !PrimaryReads.TRANSACTION_NAME.equals(TransactionSynchronizationManager.getCurrentTransactionName())) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        stickToPrimary(userId);
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+        return userId != null && isStickyToPrimary(userId) ? PRIMARY : REPLICA;
+    }
+
+    private void stickToPrimary(String userId) {
+        Instant now = clock.instant();
+        if (primaryUntil.size() >= MAX_TRACKED_USERS) {
+            primaryUntil.values().removeIf(until -> !now.isBefore(until));
+        }
+        primaryUntil.put(userId, now.plus(stickyPrimary));
+    }
+
+    private boolean isStickyToPrimary(String userId) {
+        Instant until = primaryUntil.get(userId);
+        return until != null && clock.instant().isBefore(until);
+    }
+
+    private static String currentUserId() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            return ((ServletRequestAttributes) attributes).getRequest().getHeader(USER_ID_HEADER);
+        }
+        return null;
+    }
+}
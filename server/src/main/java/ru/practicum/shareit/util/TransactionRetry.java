@@ -0,0 +1,69 @@
+package ru.practicum.shareit.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.exception.ConflictException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs an action in its own transaction and runs it again when the transaction loses a race: an optimistic
+ * lock failure, a deadlock or a lock timeout. Gives up with a {@link ConflictException} after
+ * {@code shareit.transaction-retry.max-attempts} attempts, waiting a random part of
+ * {@code shareit.transaction-retry.backoff} milliseconds per attempt made before each retry.
+ * <p>
+ * Inside an existing transaction the action just joins it: the caller owns that transaction and only
+ * the caller can run it again.
+ */
+@Slf4j
+@Component
+public class TransactionRetry {
+    private final TransactionOperations transactionOperations;
+    private final int maxAttempts;
+    private final long backoff;
+
+    @Autowired
+    public TransactionRetry(TransactionOperations transactionOperations,
+                            @Value("${shareit.transaction-retry.max-attempts:3}") int maxAttempts,
+                            @Value("${shareit.transaction-retry.backoff:50}") long backoff) {
+        this.transactionOperations = transactionOperations;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionOperations.execute(status -> action.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("ConflictException: concurrent update, gave up after {} attempts", attempt, e);
+                    throw new ConflictException("Concurrent update, please try again");
+                }
+                log.warn("Concurrent update, attempt {} of {} is retried: {}", attempt, maxAttempts, e.getMessage());
+                pause(attempt);
+            }
+        }
+    }
+
+    private void pause(int attempt) {
+        if (backoff <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoff * attempt) + 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Concurrent update, please try again");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Opt-in mode ({@code shareit.threads.virtual=true}) that runs Tomcat request handling on virtual threads.
+ * Requests spend most of their time blocked on I/O, so one virtual thread per request replaces the bounded
+ * platform thread pool. On a JDK without virtual threads the default Tomcat pool is kept.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "shareit.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+    private ExecutorService requestExecutor;
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> VirtualThreads.newVirtualThreadPerTaskExecutor().ifPresent(executor -> {
+            requestExecutor = executor;
+            protocolHandler.setExecutor(executor);
+            log.info("Tomcat handles requests on virtual threads");
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (requestExecutor != null) {
+            requestExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ru.practicum.shareit.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads without compiling against JDK 21: the project targets Java 11,
+ * so {@code Executors.newVirtualThreadPerTaskExecutor()} is looked up at runtime.
+ */
+@Slf4j
+public final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return factoryMethod() != null;
+    }
+
+    public static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+        Method factory = factoryMethod();
+        if (factory == null) {
+            log.warn("Virtual threads are not available on Java {}, platform threads are used",
+                    System.getProperty("java.version"));
+            return Optional.empty();
+        }
+        try {
+            return Optional.of((ExecutorService) factory.invoke(null));
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual thread executor could not be created, platform threads are used", e);
+            return Optional.empty();
+        }
+    }
+
+    private static Method factoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
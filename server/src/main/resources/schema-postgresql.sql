@@ -0,0 +1,10 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS IDX_ITEMS_NAME_TRGM ON items USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS IDX_ITEMS_DESCRIPTION_TRGM ON items USING gin (lower(description) gin_trgm_ops);
+
+-- Approved bookings of one item never overlap, also under concurrent approvals
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE bookings ADD CONSTRAINT EX_BOOKINGS_APPROVED_OVERLAP
+    EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date) WITH &&) WHERE (status = 'APPROVED');
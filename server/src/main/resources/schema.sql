@@ -4,6 +4,7 @@ CREATE TABLE IF NOT EXISTS users (
     id INTEGER GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     name VARCHAR(255) NOT NULL,
     email VARCHAR(512) NOT NULL,
+    version INTEGER NOT NULL DEFAULT 0,
     CONSTRAINT PK_USER PRIMARY KEY (id),
     CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
 );
@@ -15,6 +16,7 @@ CREATE TABLE IF NOT EXISTS items (
     available BOOLEAN,
     owner_id INTEGER NOT NULL,
     request_id INTEGER,
+    version INTEGER NOT NULL DEFAULT 0,
     CONSTRAINT PK_ITEM PRIMARY KEY (id),
     CONSTRAINT FK_ITEM_FOR_OWNER FOREIGN KEY (owner_id) REFERENCES users (id) ON DELETE CASCADE
 );
@@ -26,6 +28,7 @@ CREATE TABLE IF NOT EXISTS bookings (
     item_id INTEGER NOT NULL,
     booker_id INTEGER NOT NULL,
     status VARCHAR (25),
+    version INTEGER NOT NULL DEFAULT 0,
     CONSTRAINT PK_BOOKING PRIMARY KEY (id),
     CONSTRAINT FK_BOOKING_FOR_BOOKER FOREIGN KEY (booker_id) REFERENCES users (id),
     CONSTRAINT FK_BOOKING_FOR_ITEM FOREIGN KEY (item_id) REFERENCES items (id)
@@ -36,6 +39,7 @@ CREATE TABLE IF NOT EXISTS item_request (
     description VARCHAR(512) NOT NULL,
     requester_id INTEGER NOT NULL,
     created TIMESTAMP NOT NULL,
+    version INTEGER NOT NULL DEFAULT 0,
     CONSTRAINT PK_ITEM_REQUEST PRIMARY KEY (id),
     CONSTRAINT FK_ITEM_REQUEST_FOR_REQUESTER FOREIGN KEY (requester_id) REFERENCES users (id)
 );
@@ -49,4 +53,19 @@ CREATE TABLE IF NOT EXISTS comments (
     CONSTRAINT PK_COMMENTS PRIMARY KEY (id),
     CONSTRAINT FK_COMMENT_FOR_ITEM FOREIGN KEY (item_id) REFERENCES items (id),
     CONSTRAINT FK_COMMENT_FOR_USER FOREIGN KEY (author_id) REFERENCES users (id)
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS IDX_ITEMS_OWNER ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS IDX_ITEMS_REQUEST ON items (request_id);
+
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_BOOKER_START ON bookings (booker_id, start_date DESC);
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_BOOKER_STATUS_START ON bookings (booker_id, status, start_date DESC);
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_BOOKER_END ON bookings (booker_id, end_date);
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_ITEM_START ON bookings (item_id, start_date DESC);
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_ITEM_STATUS_START ON bookings (item_id, status, start_date DESC);
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_ITEM_BOOKER_END ON bookings (item_id, booker_id, end_date);
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_ITEM_STATUS_END ON bookings (item_id, status, end_date, start_date);
+
+CREATE INDEX IF NOT EXISTS IDX_ITEM_REQUEST_REQUESTER_CREATED ON item_request (requester_id, created DESC);
+
+CREATE INDEX IF NOT EXISTS IDX_COMMENTS_ITEM_CREATED ON comments (item_id, created DESC);
@@ -0,0 +1,122 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.PostBookingDto;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.ItemRequestService;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the same concurrent read load against the server with the default settings and with the perf profile.
+ * More client threads than default pool connections keep requests waiting for a connection, which the larger
+ * fixed pool and the connection released before rendering (open-in-view off) of the perf profile avoid.
+ * Excluded from the default build, run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class PerfProfileBenchmarkTest {
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final int THREADS = 32;
+    private static final int WARMUP_REQUESTS_PER_THREAD = 50;
+    private static final int REQUESTS_PER_THREAD = 200;
+
+    @Test
+    void test_PerfProfileServesMoreReadsThanDefault() throws Exception {
+        double defaults = measureThroughput("test");
+        double perf = measureThroughput("test,perf");
+        assertTrue(perf > defaults, String.format("default %.0f req/s, perf %.0f req/s", defaults, perf));
+    }
+
+    private double measureThroughput(String profiles) throws Exception {
+        try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+                new SpringApplicationBuilder(ShareItServer.class)
+                        .run("--server.port=0",
+                                "--management.server.port=0",
+                                "--spring.profiles.active=" + profiles,
+                                "--spring.datasource.url=jdbc:h2:mem:perf-benchmark-" + profiles.replace(',', '-'),
+                                "--logging.level.root=WARN")) {
+            String baseUrl = "http://localhost:" + context.getWebServer().getPort();
+            List<HttpRequest> reads = createReads(context, baseUrl);
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            sendAll(client, reads, WARMUP_REQUESTS_PER_THREAD);
+
+            long startNanos = System.nanoTime();
+            sendAll(client, reads, REQUESTS_PER_THREAD);
+            long elapsedNanos = System.nanoTime() - startNanos;
+            return THREADS * REQUESTS_PER_THREAD / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    private static List<HttpRequest> createReads(ServletWebServerApplicationContext context, String baseUrl) {
+        UserService userService = context.getBean(UserService.class);
+        ItemService itemService = context.getBean(ItemService.class);
+        BookingService bookingService = context.getBean(BookingService.class);
+        ItemRequestService itemRequestService = context.getBean(ItemRequestService.class);
+
+        UserDto owner = userService.create(new UserDto(null, "Owner", "owner@bench51.ru"));
+        UserDto booker = userService.create(new UserDto(null, "Booker", "booker@bench51.ru"));
+        ItemRequestDto itemRequest = itemRequestService.create(new ItemRequestDto(null, "Нужна дрель", null, null,
+                null), booker.getId());
+        ItemDto item = itemService.create(new ItemDto(null, "Дрель", "Аккумуляторная дрель", true,
+                null, itemRequest.getId(), null, null, null), owner.getId());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 1; i <= 10; i++) {
+            bookingService.create(new PostBookingDto(item.getId(), now.plusDays(i), now.plusDays(i).plusHours(1)),
+                    booker.getId());
+        }
+
+        return List.of(
+                read(baseUrl + "/items/" + item.getId(), owner.getId()),
+                read(baseUrl + "/bookings", booker.getId()),
+                read(baseUrl + "/bookings/owner", owner.getId()),
+                read(baseUrl + "/requests/all", owner.getId()));
+    }
+
+    private static HttpRequest read(String url, Integer userId) {
+        return HttpRequest.newBuilder(URI.create(url)).header(USER_ID_HEADER, String.valueOf(userId)).GET().build();
+    }
+
+    private static void sendAll(HttpClient client, List<HttpRequest> reads, int requestsPerThread)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    for (int j = 0; j < requestsPerThread; j++) {
+                        HttpResponse<Void> response = client.send(reads.get(j % reads.size()),
+                                HttpResponse.BodyHandlers.discarding());
+                        assertEquals(200, response.statusCode());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
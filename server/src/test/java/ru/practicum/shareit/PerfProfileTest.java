@@ -0,0 +1,147 @@
+package ru.practicum.shareit;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.PostBookingDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.coment.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.ItemRequestService;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the server with the perf profile, where open-in-view is off, and reads items, bookings and requests through
+ * the controllers, so every lazy association those views touch must be loaded inside the service transaction.
+ * Throughput against the default profile is measured by {@link PerfProfileBenchmarkTest}.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:perf")
+@AutoConfigureMockMvc
+@ActiveProfiles({"test", "perf"})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class PerfProfileTest {
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+
+    private final DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Environment environment;
+    private final MockMvc mvc;
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingService bookingService;
+    private final ItemRequestService itemRequestService;
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final CommentRepository commentRepository;
+    private final ItemRequestRepository itemRequestRepository;
+
+    private UserDto owner;
+    private UserDto booker;
+    private ItemDto item;
+    private BookingDto nextBooking;
+    private ItemRequestDto itemRequest;
+
+    @BeforeEach
+    void setUp() {
+        owner = userService.create(new UserDto(null, "Owner", "owner@perf50.ru"));
+        booker = userService.create(new UserDto(null, "Booker", "booker@perf50.ru"));
+        itemRequest = itemRequestService.create(new ItemRequestDto(null, "Нужна дрель", null, null, null),
+                booker.getId());
+        item = itemService.create(new ItemDto(null, "Дрель", "Аккумуляторная дрель", true,
+                null, itemRequest.getId(), null, null, null), owner.getId());
+
+        LocalDateTime now = LocalDateTime.now();
+        bookingRepository.save(new Booking(null, now.minusDays(2), now.minusDays(1),
+                itemRepository.findById(item.getId()).orElseThrow(), userRepository.getReferenceById(booker.getId()),
+                Status.APPROVED, null));
+        itemService.createComment("Хорошая дрель", item.getId(), booker.getId());
+        nextBooking = bookingService.create(new PostBookingDto(item.getId(), now.plusDays(1), now.plusDays(2)),
+                booker.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        commentRepository.deleteAll();
+        bookingRepository.deleteAll();
+        itemRepository.deleteAll();
+        itemRequestRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void test_PerfProfileSettingsAreApplied() throws SQLException {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        assertEquals(20, hikari.getMaximumPoolSize());
+        assertEquals(20, hikari.getMinimumIdle());
+        assertEquals("50", entityManagerFactory.getProperties().get("hibernate.jdbc.batch_size"));
+        assertEquals("true", entityManagerFactory.getProperties().get("hibernate.order_inserts"));
+        assertEquals("false", environment.getProperty("spring.jpa.open-in-view"));
+    }
+
+    @Test
+    void test_ReadsWorkWithoutOpenInView() throws Exception {
+        mvc.perform(get("/items/{itemId}", item.getId()).header(USER_ID_HEADER, owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lastBooking.bookerId").value(booker.getId()))
+                .andExpect(jsonPath("$.nextBooking.id").value(nextBooking.getId()))
+                .andExpect(jsonPath("$.comments[0].authorName").value(booker.getName()));
+        mvc.perform(get("/items").header(USER_ID_HEADER, owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].comments", hasSize(1)));
+        mvc.perform(get("/items/search").param("text", "дрель"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(item.getId()));
+
+        mvc.perform(get("/bookings/{bookingId}", nextBooking.getId()).header(USER_ID_HEADER, booker.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.item.name").value(item.getName()))
+                .andExpect(jsonPath("$.booker.id").value(booker.getId()));
+        mvc.perform(get("/bookings").header(USER_ID_HEADER, booker.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].item.name").value(item.getName()));
+        mvc.perform(get("/bookings/owner").header(USER_ID_HEADER, owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].booker.id").value(booker.getId()));
+
+        mvc.perform(get("/requests/{requestId}", itemRequest.getId()).header(USER_ID_HEADER, booker.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(item.getId()));
+        mvc.perform(get("/requests").header(USER_ID_HEADER, booker.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].items", hasSize(1)));
+        mvc.perform(get("/requests/all").header(USER_ID_HEADER, owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].requester.id").value(booker.getId()));
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.PostBookingDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Decides the same bookings from many threads at once and checks that exactly one decision wins.
+ * Runs without a test transaction, on its own in-memory database.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:booking-concurrency")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingApprovalConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 20;
+
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final UserService userService;
+    private final ItemService itemService;
+
+    @Test
+    void test_ConcurrentDecisions_ExactlyOneWins() throws Exception {
+        UserDto owner = userService.create(new UserDto(null, "Owner", "owner@concurrency.ru"));
+        UserDto booker = userService.create(new UserDto(null, "Booker", "booker@concurrency.ru"));
+        ItemDto item = itemService.create(new ItemDto(null, "Item", "Description", true,
+                null, null, null, null, null), owner.getId());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                BookingDto booking = bookingService.create(new PostBookingDto(item.getId(),
+                        start.plusDays(round), start.plusDays(round).plusHours(1)), booker.getId());
+
+                CountDownLatch startGate = new CountDownLatch(1);
+                List<Future<Status>> decisions = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    boolean approved = i % 2 == 0;
+                    decisions.add(executor.submit(() -> {
+                        startGate.await();
+                        try {
+                            return bookingService.update(booking.getId(), owner.getId(), approved).getStatus();
+                        } catch (BadRequestException | ConflictException e) {
+                            return null;
+                        }
+                    }));
+                }
+                startGate.countDown();
+
+                List<Status> winners = new ArrayList<>();
+                for (Future<Status> decision : decisions) {
+                    Status status = decision.get(30, TimeUnit.SECONDS);
+                    if (status != null) {
+                        winners.add(status);
+                    }
+                }
+                assertEquals(1, winners.size(), "round " + round);
+                assertEquals(winners.get(0), bookingRepository.findById(booking.getId()).orElseThrow().getStatus());
+                assertEquals(1, bookingRepository.findById(booking.getId()).orElseThrow().getVersion());
+            }
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
 import ru.practicum.shareit.booking.dto.PostBookingDto;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -19,10 +20,13 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -166,4 +170,30 @@ public class BookingControllerTest {
                         is(bookingDto.getEnd().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))))
                 .andExpect(jsonPath("$.status", is(bookingDto.getStatus().toString())));
     }
-}
\ No newline at end of file
+
+    @Test
+    void exportBookingsOwner_Csv() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<BookingExportDto> action = invocation.getArgument(2);
+            action.accept(new BookingExportDto(1, bookingDto.getStart(), bookingDto.getEnd(), Status.APPROVED,
+                    1, "Drill, cordless", 2, "SecondUser"));
+            return null;
+        }).when(bookingService).exportBookings(eq(1), eq(true), any());
+
+        mvc.perform(get("/bookings/owner/export")
+                        .header(USER_ID_HEADER, 1)
+                        .queryParam("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string("id,start,end,status,itemId,itemName,bookerId,bookerName\n" +
+                        "1,2030-12-25T12:00:00,2030-12-26T12:00:00,APPROVED,1,\"Drill, cordless\",2,SecondUser\n"));
+    }
+
+    @Test
+    void exportBookings_UnknownFormat() throws Exception {
+        mvc.perform(get("/bookings/export")
+                        .header(USER_ID_HEADER, 1)
+                        .queryParam("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+}
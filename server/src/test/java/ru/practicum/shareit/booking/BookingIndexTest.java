@@ -0,0 +1,67 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.hamcrest.Matcher;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.not;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingIndexTest {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void test_BookerQueries_UseBookerIndex() {
+        assertThat(explain("select * from bookings where booker_id = 1 order by start_date desc"),
+                indexLookup("BOOKER_ID = 1"));
+        assertThat(explain("select * from bookings where booker_id = 1 and status = 'WAITING' " +
+                        "order by start_date desc"),
+                indexLookup("BOOKER_ID = 1"));
+    }
+
+    @Test
+    void test_OwnerQueries_UseOwnerAndItemIndexes() {
+        String plan = explain("select b.* from bookings b join items i on b.item_id = i.id " +
+                "where i.owner_id = 1 order by b.start_date desc");
+        assertThat(plan, indexLookup("OWNER_ID = 1"));
+        assertThat(plan, containsString("ITEM_ID = I.ID"));
+    }
+
+    @Test
+    void test_LastAndNextBookingQueries_UseItemIndex() {
+        assertThat(explain("select * from bookings where item_id = 1 and start_date < current_timestamp " +
+                        "and status <> 'REJECTED' order by start_date desc limit 1"),
+                indexLookup("ITEM_ID = 1"));
+        assertThat(explain("select * from bookings where item_id = 1 and booker_id = 2 " +
+                        "and end_date < current_timestamp and status = 'APPROVED' limit 1"),
+                indexLookup("(ITEM|BOOKER)_ID = [12]"));
+    }
+
+    /**
+     * H2 has no statistics for the empty test tables and picks freely between indexes on the same
+     * leading column, so the plan is only checked for an index lookup instead of a table scan.
+     */
+    private static Matcher<String> indexLookup(String condition) {
+        return allOf(matchesPattern("(?s).*/\\* PUBLIC\\.\\w+: " + condition + "\\b.*"),
+                not(containsString(".TABLESCAN")));
+    }
+
+    @Test
+    void test_OverlapQuery_UsesItemIndex() {
+        assertThat(explain("select count(*) from bookings where item_id = 1 and status = 'APPROVED' " +
+                        "and end_date > current_timestamp and start_date < current_timestamp + 1"),
+                containsString("IDX_BOOKINGS_ITEM"));
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class)).toUpperCase();
+    }
+}
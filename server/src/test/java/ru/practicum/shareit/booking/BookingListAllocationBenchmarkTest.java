@@ -0,0 +1,142 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.PostBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.coment.CommentMapper;
+import ru.practicum.shareit.item.coment.CommentRepository;
+import ru.practicum.shareit.item.coment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import javax.persistence.EntityManager;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares bytes allocated per booking list request when the page is read as managed entities in a read-write
+ * transaction and when it is read as {@link BookingRepository.BookingRow} rows in a read-only one. Both sides
+ * look up comments and build the same DTOs, so the difference is the cost of the rows themselves.
+ * Excluded from the default build, run with {@code mvn test -Pbenchmark}; skipped on JVMs without per-thread
+ * allocation counters.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:booking-allocation")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingListAllocationBenchmarkTest {
+    private static final String ENTITY_PAGE_QUERY = "select b from Booking b join fetch b.item join fetch b.booker" +
+            " where b.booker.id = :userId order by b.start desc, b.id desc";
+    private static final int ITEMS = 10;
+    private static final int BOOKINGS = 500;
+    private static final int PAGE_SIZE = 50;
+    private static final int WARMUP_REQUESTS = 200;
+    private static final int REQUESTS = 500;
+
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final EntityManager entityManager;
+    private final UserService userService;
+    private final ItemService itemService;
+    private final CommentRepository commentRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Test
+    void test_RowPagesAllocateLessThanEntityPages() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "per-thread allocation counters are not available");
+        UserDto owner = userService.create(new UserDto(null, "Owner", "owner@bench.ru"));
+        UserDto booker = userService.create(new UserDto(null, "Booker", "booker@bench.ru"));
+        List<ItemDto> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(itemService.create(new ItemDto(null, "Item" + i, "Description" + i, true,
+                    null, null, null, null, null), owner.getId()));
+        }
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < BOOKINGS; i++) {
+            bookingService.create(new PostBookingDto(items.get(i % ITEMS).getId(),
+                    start.plusHours(i), start.plusHours(i).plusMinutes(30)), booker.getId());
+        }
+
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Supplier<List<BookingDto>> entityPage = () -> readWrite.execute(status -> {
+            List<Booking> bookings = entityManager.createQuery(ENTITY_PAGE_QUERY, Booking.class)
+                    .setParameter("userId", booker.getId())
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList();
+            Map<Integer, List<CommentDto>> commentsByItemId = getCommentsByItemIds(bookings.stream()
+                    .map(booking -> booking.getItem().getId())
+                    .collect(toSet()));
+            return bookings.stream()
+                    .map(booking -> BookingMapper.toBookingDto(booking,
+                            commentsByItemId.getOrDefault(booking.getItem().getId(), Collections.emptyList())))
+                    .collect(toList());
+        });
+        Supplier<List<BookingDto>> rowPage = () -> readOnly.execute(status -> {
+            List<BookingRepository.BookingRow> rows = bookingRepository.findByBookerId(booker.getId(),
+                    PageRequest.of(0, PAGE_SIZE)).getContent();
+            Map<Integer, List<CommentDto>> commentsByItemId = getCommentsByItemIds(rows.stream()
+                    .map(BookingRepository.BookingRow::getItemId)
+                    .collect(toSet()));
+            return rows.stream()
+                    .map(row -> BookingMapper.toBookingDto(row,
+                            commentsByItemId.getOrDefault(row.getItemId(), Collections.emptyList())))
+                    .collect(toList());
+        });
+        assertEquals(ids(entityPage.get()), ids(rowPage.get()));
+        assertEquals(ids(rowPage.get()), ids(bookingService.getBookingList("ALL", booker.getId(), 0, PAGE_SIZE)));
+
+        double entityBytes = allocatedBytesPerRequest(entityPage);
+        double rowBytes = allocatedBytesPerRequest(rowPage);
+        assertTrue(rowBytes < entityBytes, String.format(
+                "rows allocated %.0f bytes/request, entities %.0f bytes/request", rowBytes, entityBytes));
+    }
+
+    private Map<Integer, List<CommentDto>> getCommentsByItemIds(Collection<Integer> itemIds) {
+        return CommentMapper.mapToCommentDtoMap(commentRepository.findAllGroupedByItemId(itemIds));
+    }
+
+    private static List<Integer> ids(List<BookingDto> bookings) {
+        return bookings.stream()
+                .map(BookingDto::getId)
+                .collect(toList());
+    }
+
+    private static double allocatedBytesPerRequest(Supplier<List<BookingDto>> request) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            request.get();
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < REQUESTS; i++) {
+            request.get();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / (double) REQUESTS;
+    }
+}
@@ -7,7 +7,10 @@ import org.mockito.Mock;
 
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionOperations;
 import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.BadRequestException;
@@ -15,8 +18,10 @@ import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.coment.CommentRepository;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.UserService;
-import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.TransactionRetry;
 
+import javax.persistence.EntityManager;
 import java.util.Optional;
 
 
@@ -36,13 +41,21 @@ public class BookingServiceImplTest {
     private ItemRepository mockItemRepository;
     @Mock
     private CommentRepository mockCommentRepository;
+    @Mock
+    private ApplicationEventPublisher mockEventPublisher;
+    @Mock
+    private BookingIntervalIndex mockBookingIntervalIndex;
+    @Mock
+    private EntityManager mockEntityManager;
 
     private BookingService bookingService;
 
     @BeforeEach
     void beforeEach() {
         bookingService = new BookingServiceImpl(mockBookingRepository,
-                mockUserService, mockItemRepository, mockCommentRepository);
+                mockUserService, mockItemRepository, mockCommentRepository, mockEventPublisher,
+                mockBookingIntervalIndex, new TransactionRetry(TransactionOperations.withoutTransaction(), 1, 0),
+                mockEntityManager);
     }
 
     @Test
@@ -50,9 +63,6 @@ public class BookingServiceImplTest {
         Integer bookingId = 1;
         Integer userId = 1;
 
-        when(mockUserService.findUserById(userId)).thenReturn(
-                new UserDto(1, "Apollon", "apollo@yandex.ru"));
-
         when(mockBookingRepository.findById(bookingId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> bookingService.getBookingById(bookingId, userId));
@@ -69,8 +79,26 @@ public class BookingServiceImplTest {
         booking.setId(bookingId);
         booking.setStatus(Status.APPROVED);
         booking.setItem(item);
-        when(mockUserService.findUserById(userId)).thenReturn(new UserDto(userId, "Apollon", "apollo@yandex.ru"));
         when(mockBookingRepository.findByIdAndItem_Owner_Id(any(), any())).thenReturn(Optional.of(booking));
         assertThrows(BadRequestException.class, () -> bookingService.update(bookingId, userId, approved));
     }
+
+    @Test
+    void test_GetBookingById_ChecksOwnershipWithSingleExistsQuery() {
+        Integer bookingId = 1;
+        Integer ownerId = 2;
+        Item item = new Item();
+        item.setId(1);
+        Booking booking = new Booking();
+        booking.setId(bookingId);
+        booking.setItem(item);
+        booking.setBooker(new User(3, "Booker", "booker@yandex.ru"));
+        booking.setStatus(Status.WAITING);
+        when(mockBookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(mockItemRepository.existsByIdAndOwnerId(item.getId(), ownerId)).thenReturn(true);
+
+        assertEquals(bookingId, bookingService.getBookingById(bookingId, ownerId).getId());
+        verify(mockItemRepository).existsByIdAndOwnerId(item.getId(), ownerId);
+        verify(mockItemRepository, never()).findRowsByOwnerId(any(), any());
+    }
 }
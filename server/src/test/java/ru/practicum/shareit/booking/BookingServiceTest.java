@@ -1,12 +1,20 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
+import ru.practicum.shareit.booking.dto.NearestBookingsDto;
 import ru.practicum.shareit.booking.dto.PostBookingDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.InternalServerErrorException;
 import ru.practicum.shareit.item.ItemService;
@@ -15,13 +23,22 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
+import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @Transactional
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 
@@ -29,12 +46,14 @@ public class BookingServiceTest {
     private final BookingService bookingService;
     private final UserService userService;
     private final ItemService itemService;
+    private final EntityManagerFactory entityManagerFactory;
+    private final EntityManager entityManager;
     private final User user = new User(30, "First", "first@first30.ru");
     private final UserDto userDto1 = new UserDto(301, "AlexOne", "alexone@alex30.ru");
     private final UserDto userDto2 = new UserDto(302, "AlexTwo", "alextwo@alex30.ru");
-    private final ItemDto itemDto1 = new ItemDto(301, "Item1", "Description1", true,
+    private final ItemDto itemDto1 = new ItemDto(null, "Item1", "Description1", true,
             user, null, null, null, null);
-    private final ItemDto itemDto2 = new ItemDto(302, "Item2", "Description2", true,
+    private final ItemDto itemDto2 = new ItemDto(null, "Item2", "Description2", true,
             user, null, null, null, null);
 
     @Test
@@ -295,4 +314,266 @@ public class BookingServiceTest {
         List<BookingDto> listBookings = bookingService.getBookingList("CURRENT", newUserDto.getId(), 0, 1);
         assertEquals(1, listBookings.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void test_GetLastAndNextBookings_ForSeveralItems() {
+        UserDto ownerDto = userService.create(userDto1);
+        UserDto newUserDto = userService.create(userDto2);
+        ItemDto firstItemDto = itemService.create(itemDto1, ownerDto.getId());
+        ItemDto secondItemDto = itemService.create(itemDto2, ownerDto.getId());
+
+        BookingDto oldBooking = bookingService.create(new PostBookingDto(firstItemDto.getId(),
+                LocalDateTime.now().minusDays(3), LocalDateTime.now().minusDays(2)), newUserDto.getId());
+        BookingDto lastBooking = bookingService.create(new PostBookingDto(firstItemDto.getId(),
+                LocalDateTime.now().minusDays(1), LocalDateTime.now().minusHours(1)), newUserDto.getId());
+        BookingDto nextBooking = bookingService.create(new PostBookingDto(firstItemDto.getId(),
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)), newUserDto.getId());
+        bookingService.create(new PostBookingDto(firstItemDto.getId(),
+                LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4)), newUserDto.getId());
+        BookingDto rejectedBooking = bookingService.create(new PostBookingDto(secondItemDto.getId(),
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)), newUserDto.getId());
+        bookingService.update(rejectedBooking.getId(), ownerDto.getId(), false);
+
+        Map<Integer, NearestBookingsDto> bookings = bookingService.getLastAndNextBookings(
+                List.of(firstItemDto.getId(), secondItemDto.getId()));
+
+        assertEquals(1, bookings.size());
+        assertEquals(lastBooking.getId(), bookings.get(firstItemDto.getId()).getLastBooking().getId());
+        assertEquals(nextBooking.getId(), bookings.get(firstItemDto.getId()).getNextBooking().getId());
+        assertNotEquals(oldBooking.getId(), bookings.get(firstItemDto.getId()).getLastBooking().getId());
+    }
+
+    @Test
+    void test_ApprovedBookingsOfItemDoNotOverlap() {
+        UserDto ownerDto = userService.create(userDto1);
+        UserDto newUserDto = userService.create(userDto2);
+        ItemDto newItemDto = itemService.create(itemDto1, ownerDto.getId());
+        LocalDateTime start = LocalDateTime.of(2030, 12, 25, 12, 0, 0);
+        BookingDto first = bookingService.create(new PostBookingDto(newItemDto.getId(),
+                start, start.plusDays(2)), newUserDto.getId());
+        BookingDto second = bookingService.create(new PostBookingDto(newItemDto.getId(),
+                start.plusDays(1), start.plusDays(3)), newUserDto.getId());
+
+        bookingService.update(first.getId(), ownerDto.getId(), true);
+
+        assertThrows(ConflictException.class, () -> bookingService.update(second.getId(), ownerDto.getId(), true));
+        assertThrows(ConflictException.class, () -> bookingService.create(new PostBookingDto(newItemDto.getId(),
+                start.minusDays(1), start.plusHours(1)), newUserDto.getId()));
+        BookingDto adjacent = bookingService.create(new PostBookingDto(newItemDto.getId(),
+                start.plusDays(2), start.plusDays(3)), newUserDto.getId());
+        assertEquals(Status.APPROVED, bookingService.update(adjacent.getId(), ownerDto.getId(), true).getStatus());
+    }
+
+    @Test
+    void test_CreateBatch_ReportsEachEntry() {
+        UserDto ownerDto = userService.create(userDto1);
+        UserDto newUserDto = userService.create(userDto2);
+        ItemDto firstItem = itemService.create(itemDto1, ownerDto.getId());
+        ItemDto secondItem = itemService.create(itemDto2, ownerDto.getId());
+        LocalDateTime start = LocalDateTime.of(2030, 12, 25, 12, 0, 0);
+        BookingDto approved = bookingService.create(new PostBookingDto(firstItem.getId(),
+                start, start.plusDays(1)), newUserDto.getId());
+        bookingService.update(approved.getId(), ownerDto.getId(), true);
+
+        List<BookingBatchResultDto> results = bookingService.createBatch(Arrays.asList(
+                new PostBookingDto(firstItem.getId(), start.plusDays(1), start.plusDays(2)),
+                new PostBookingDto(firstItem.getId(), start.plusHours(12), start.plusDays(2)),
+                new PostBookingDto(secondItem.getId(), start, start.plusDays(2)),
+                new PostBookingDto(secondItem.getId(), start.plusDays(1), start.plusDays(3)),
+                new PostBookingDto(secondItem.getId(), start.plusDays(3), start.plusDays(2)),
+                new PostBookingDto(999, start, start.plusDays(1)),
+                null,
+                new PostBookingDto(secondItem.getId(), null, start.plusDays(1))), newUserDto.getId());
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7), results.stream()
+                .map(BookingBatchResultDto::getIndex)
+                .collect(toList()));
+        assertEquals(Arrays.asList(201, 409, 201, 201, 400, 404, 400, 400), results.stream()
+                .map(BookingBatchResultDto::getStatus)
+                .collect(toList()));
+        assertEquals("end must be after start", results.get(4).getError());
+        assertEquals("Booking must not be null", results.get(6).getError());
+        assertEquals("start must not be null", results.get(7).getError());
+        assertEquals(Status.WAITING, results.get(0).getBooking().getStatus());
+        Integer createdId = results.get(2).getBooking().getId();
+        assertEquals(createdId, bookingService.getBookingById(createdId, newUserDto.getId()).getId());
+        assertEquals(4, bookingService.getBookingList("ALL", newUserDto.getId(), 0, 10).size());
+    }
+
+    @Test
+    void test_ExportBookings_StreamsWholeHistoryOldestFirst() {
+        UserDto ownerDto = userService.create(userDto1);
+        UserDto newUserDto = userService.create(userDto2);
+        ItemDto newItemDto = itemService.create(itemDto1, ownerDto.getId());
+        LocalDateTime start = LocalDateTime.of(2030, 12, 25, 12, 0, 0);
+        // more than one fetch chunk, so the persistence context is cleared while streaming
+        int total = BookingServiceImpl.MAX_BATCH_SIZE * 6;
+        for (int batch = 0; batch < total / BookingServiceImpl.MAX_BATCH_SIZE; batch++) {
+            List<PostBookingDto> postBookingDtos = new ArrayList<>();
+            for (int i = 0; i < BookingServiceImpl.MAX_BATCH_SIZE; i++) {
+                LocalDateTime bookingStart = start.plusHours(batch * BookingServiceImpl.MAX_BATCH_SIZE + i);
+                postBookingDtos.add(new PostBookingDto(newItemDto.getId(), bookingStart, bookingStart.plusMinutes(30)));
+            }
+            bookingService.createBatch(postBookingDtos, newUserDto.getId());
+        }
+
+        List<BookingExportDto> byOwner = new ArrayList<>();
+        bookingService.exportBookings(ownerDto.getId(), true, byOwner::add);
+        List<BookingExportDto> byBooker = new ArrayList<>();
+        bookingService.exportBookings(newUserDto.getId(), false, byBooker::add);
+
+        assertTrue(total > BookingRepository.EXPORT_FETCH_SIZE);
+        assertEquals(total, byOwner.size());
+        assertEquals(byOwner, byBooker);
+        assertEquals(start, byOwner.get(0).getStart());
+        assertEquals(start.plusHours(total - 1), byOwner.get(total - 1).getStart());
+        assertEquals("Item1", byOwner.get(total - 1).getItemName());
+        assertEquals("AlexTwo", byOwner.get(total - 1).getBookerName());
+    }
+
+    @Test
+    void test_Create_NamesWrongField() {
+        UserDto ownerDto = userService.create(userDto1);
+        UserDto newUserDto = userService.create(userDto2);
+        ItemDto newItemDto = itemService.create(itemDto1, ownerDto.getId());
+        LocalDateTime start = LocalDateTime.of(2030, 12, 25, 12, 0, 0);
+
+        BadRequestException exp = assertThrows(BadRequestException.class, () -> bookingService.create(
+                new PostBookingDto(newItemDto.getId(), start, start), newUserDto.getId()));
+        assertEquals("end must be after start", exp.getMessage());
+        exp = assertThrows(BadRequestException.class, () -> bookingService.create(
+                new PostBookingDto(null, start, start.plusDays(1)), newUserDto.getId()));
+        assertEquals("itemId must not be null", exp.getMessage());
+    }
+
+    @Test
+    void test_CreateBatch_TooLarge() {
+        UserDto newUserDto = userService.create(userDto2);
+        PostBookingDto postBookingDto = new PostBookingDto(1, LocalDateTime.of(2030, 12, 25, 12, 0, 0),
+                LocalDateTime.of(2030, 12, 26, 12, 0, 0));
+
+        assertThrows(BadRequestException.class, () -> bookingService.createBatch(
+                Collections.nCopies(BookingServiceImpl.MAX_BATCH_SIZE + 1, postBookingDto), newUserDto.getId()));
+    }
+
+    @Test
+    void test_GetBookingByOwner_StatementCountDoesNotDependOnOwnerItemCount() {
+        UserDto ownerDto = userService.create(userDto1);
+        UserDto newUserDto = userService.create(userDto2);
+        ItemDto newItemDto = itemService.create(itemDto1, ownerDto.getId());
+        BookingDto bookingDto = bookingService.create(new PostBookingDto(newItemDto.getId(),
+                LocalDateTime.of(2030, 12, 25, 12, 0, 0),
+                LocalDateTime.of(2030, 12, 26, 12, 0, 0)), newUserDto.getId());
+
+        long statementsWithOneItem = countStatements(
+                () -> bookingService.getBookingById(bookingDto.getId(), ownerDto.getId()));
+        for (int i = 0; i < 50; i++) {
+            itemService.create(itemDto2, ownerDto.getId());
+        }
+        long statementsWithManyItems = countStatements(
+                () -> bookingService.getBookingById(bookingDto.getId(), ownerDto.getId()));
+
+        assertEquals(statementsWithOneItem, statementsWithManyItems);
+    }
+
+    @Test
+    void test_GetBookingLists_DoNotIssueCountQueries() {
+        UserDto ownerDto = userService.create(userDto1);
+        UserDto newUserDto = userService.create(userDto2);
+        ItemDto newItemDto = itemService.create(itemDto1, ownerDto.getId());
+        for (int i = 0; i < 3; i++) {
+            bookingService.create(new PostBookingDto(newItemDto.getId(),
+                    LocalDateTime.of(2030, 12, 25 + i, 12, 0, 0),
+                    LocalDateTime.of(2030, 12, 26 + i, 12, 0, 0)), newUserDto.getId());
+        }
+
+        countStatements(() -> {
+            bookingService.getBookingList("ALL", newUserDto.getId(), 0, 2);
+            bookingService.getBookingsOwner("WAITING", ownerDto.getId(), 0, 2);
+            itemService.getItemsByOwner(ownerDto.getId(), 0, 2);
+        });
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        assertTrue(statistics.getQueryExecutionCount() > 0);
+        assertTrue(Arrays.stream(statistics.getQueries())
+                .noneMatch(query -> query.toLowerCase().contains("count(")));
+    }
+
+    @Test
+    void test_GetBookingPages_StatementCountDoesNotDependOnPageSize() {
+        UserDto ownerDto = userService.create(userDto1);
+        List<ItemDto> items = List.of(itemService.create(itemDto1, ownerDto.getId()),
+                itemService.create(itemDto2, ownerDto.getId()),
+                itemService.create(itemDto2, ownerDto.getId()));
+        UserDto bookerDto = null;
+        for (int i = 0; i < 3; i++) {
+            bookerDto = userService.create(new UserDto(null, "Booker" + i, "booker" + i + "@alex30.ru"));
+            for (int j = 0; j < items.size(); j++) {
+                LocalDateTime start = LocalDateTime.of(2030, 12, 1 + i * 3 + j, 12, 0, 0);
+                bookingService.create(new PostBookingDto(items.get(j).getId(), start, start.plusHours(1)),
+                        bookerDto.getId());
+            }
+        }
+        Integer bookerId = bookerDto.getId();
+
+        long ownerSinglePage = countStatementsFromEmptyContext(
+                () -> bookingService.getBookingsOwner("ALL", ownerDto.getId(), 0, 1));
+        long ownerFullPage = countStatementsFromEmptyContext(
+                () -> bookingService.getBookingsOwner("ALL", ownerDto.getId(), 0, 9));
+        long bookerSinglePage = countStatementsFromEmptyContext(
+                () -> bookingService.getBookingList("ALL", bookerId, 0, 1));
+        long bookerFullPage = countStatementsFromEmptyContext(
+                () -> bookingService.getBookingList("ALL", bookerId, 0, 3));
+
+        assertEquals(ownerSinglePage, ownerFullPage);
+        assertEquals(bookerSinglePage, bookerFullPage);
+        assertTrue(ownerFullPage <= 3);
+    }
+
+    private long countStatementsFromEmptyContext(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        return countStatements(action);
+    }
+
+    private long countStatements(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void test_GetBookingsByBooker_KeysetPagesDoNotOverlap() {
+        UserDto ownerDto = userService.create(userDto1);
+        UserDto newUserDto = userService.create(userDto2);
+        ItemDto newItemDto = itemService.create(itemDto1, ownerDto.getId());
+        LocalDateTime start = LocalDateTime.of(2030, 12, 25, 12, 0, 0);
+        for (int i = 0; i < 3; i++) {
+            bookingService.create(new PostBookingDto(newItemDto.getId(), start, start.plusDays(1)),
+                    newUserDto.getId());
+        }
+        bookingService.create(new PostBookingDto(newItemDto.getId(), start.plusDays(2), start.plusDays(3)),
+                newUserDto.getId());
+
+        List<BookingDto> firstPage = bookingService.getBookingList("ALL", newUserDto.getId(), 0, 2);
+        String cursor = BookingCursor.of(firstPage.get(firstPage.size() - 1)).encode();
+        List<BookingDto> secondPage = bookingService.getBookingListAfter("ALL", newUserDto.getId(), cursor, 2);
+        List<BookingDto> ownerSecondPage = bookingService.getBookingsOwnerAfter("ALL", ownerDto.getId(), cursor, 2);
+
+        assertEquals(2, firstPage.size());
+        assertEquals(2, secondPage.size());
+        assertEquals(secondPage, ownerSecondPage);
+        assertTrue(firstPage.stream().noneMatch(secondPage::contains));
+        assertTrue(secondPage.get(0).getId() < firstPage.get(1).getId());
+    }
+
+    @Test
+    void test_GetBookingsByBooker_MalformedCursor() {
+        UserDto newUserDto = userService.create(userDto2);
+        assertThrows(BadRequestException.class,
+                () -> bookingService.getBookingListAfter("ALL", newUserDto.getId(), "not-a-cursor", 2));
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.booking.interval;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingIntervalIndexTest {
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+    @Mock
+    private BookingRepository mockBookingRepository;
+
+    private BookingIntervalIndex index;
+
+    @BeforeEach
+    void beforeEach() {
+        index = new BookingIntervalIndex(mockBookingRepository, true, 100);
+    }
+
+    @Test
+    void test_ItemIsLoadedOnceAndCheckedInMemory() {
+        when(mockBookingRepository.findApprovedPeriods(eq(1), any()))
+                .thenReturn(List.of(period(0, 2), period(4, 6)));
+
+        assertTrue(index.overlapsApproved(1, hours(1), hours(3)));
+        assertFalse(index.overlapsApproved(1, hours(2), hours(4)));
+        assertTrue(index.overlapsApproved(1, hours(5), hours(7)));
+        assertFalse(index.overlapsApproved(1, hours(6), hours(8)));
+
+        verify(mockBookingRepository, times(1)).findApprovedPeriods(eq(1), any());
+    }
+
+    @Test
+    void test_ApprovedBookingsMergeWithNeighbours() {
+        when(mockBookingRepository.findApprovedPeriods(eq(1), any()))
+                .thenReturn(List.of(period(0, 2), period(6, 8)));
+        index.overlapsApproved(1, hours(10), hours(11));
+
+        index.addApproved(1, hours(2), hours(6));
+
+        assertTrue(index.overlapsApproved(1, hours(3), hours(4)));
+        assertTrue(index.overlapsApproved(1, hours(7), hours(9)));
+        assertFalse(index.overlapsApproved(1, hours(8), hours(9)));
+    }
+
+    @Test
+    void test_PastPeriodIsCheckedInDatabase() {
+        LocalDateTime past = LocalDateTime.now().minusDays(1);
+        when(mockBookingRepository.existsApprovedOverlap(1, past, start)).thenReturn(true);
+
+        assertTrue(index.overlapsApproved(1, past, start));
+    }
+
+    private LocalDateTime hours(int hours) {
+        return start.plusHours(hours);
+    }
+
+    private BookingRepository.BookingPeriod period(int fromHours, int toHours) {
+        return new BookingRepository.BookingPeriod() {
+            @Override
+            public LocalDateTime getStartDate() {
+                return hours(fromHours);
+            }
+
+            @Override
+            public LocalDateTime getEndDate() {
+                return hours(toHours);
+            }
+        };
+    }
+}
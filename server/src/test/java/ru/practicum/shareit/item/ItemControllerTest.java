@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -22,6 +23,8 @@ import java.util.List;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -42,7 +45,7 @@ public class ItemControllerTest {
 
     private final User user = new User(1, "First", "first@first.ru");
 
-    private final Item item = new Item(1, "Item1", "Description1", true, user, null);
+    private final Item item = new Item(1, "Item1", "Description1", true, user, null, 0);
     private final ItemDto itemDto = new ItemDto(1, "Item1", "Description1", true,
             user, null, null, null, null);
     private final CommentDto commentDto = new CommentDto(1, "Text comment", item,
@@ -85,6 +88,18 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.available", is(itemDto.getAvailable())));
     }
 
+    @Test
+    void getItem_NotModified() throws Exception {
+        when(itemService.getItemETag(1, 1)).thenReturn("item-1-v0");
+        mvc.perform(get("/items/1")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(USER_ID_HEADER, 1)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"item-1-v0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"item-1-v0\""));
+        verify(itemService, never()).getItemById(any(Integer.class), any(Integer.class));
+    }
+
     @Test
     void getItemsByOwner() throws Exception {
         when(itemService.getItemsByOwner(any(Integer.class), any(Integer.class), nullable(Integer.class)))
@@ -1,21 +1,32 @@
 package ru.practicum.shareit.item;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.dao.EmptyResultDataAccessException;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.BookingService;
 import ru.practicum.shareit.booking.BookingServiceImpl;
 import ru.practicum.shareit.booking.dto.PostBookingDto;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.coment.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.PrimaryReads;
+import ru.practicum.shareit.util.TransactionRetry;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
@@ -40,6 +51,12 @@ public class ItemServiceImplTest {
     private BookingService mockBookingService;
     @Mock
     private BookingRepository mockBookingRepository;
+    @Mock
+    private ItemSearchIndex mockItemSearchIndex;
+    @Mock
+    private ApplicationEventPublisher mockEventPublisher;
+    @Mock
+    private EntityManager mockEntityManager;
 
 
     @Test
@@ -48,7 +65,11 @@ public class ItemServiceImplTest {
                 mockItemRepository,
                 mockUserService,
                 mockCommentRepository,
-                mockBookingService
+                mockBookingService,
+                mockItemSearchIndex,
+                new ItemViewCache(new SimpleMeterRegistry(),
+                        new PrimaryReads(TransactionOperations.withoutTransaction()), true, 60_000, 100),
+                mockEventPublisher
         );
         when(mockItemRepository.findById(any(Integer.class)))
                 .thenReturn(Optional.empty());
@@ -66,12 +87,37 @@ public class ItemServiceImplTest {
                 mockItemRepository,
                 mockUserService,
                 mockCommentRepository,
-                mockBookingService
+                mockBookingService,
+                mockItemSearchIndex,
+                new ItemViewCache(new SimpleMeterRegistry(),
+                        new PrimaryReads(TransactionOperations.withoutTransaction()), true, 60_000, 100),
+                mockEventPublisher
         );
 
         assertThrows(NotFoundException.class, () -> itemService.create(null, 1));
     }
 
+    @Test
+    void create_IgnoresProvidedId() {
+        ItemService itemService = new ItemServiceImpl(
+                mockItemRepository,
+                mockUserService,
+                mockCommentRepository,
+                mockBookingService,
+                mockItemSearchIndex,
+                new ItemViewCache(new SimpleMeterRegistry(),
+                        new PrimaryReads(TransactionOperations.withoutTransaction()), true, 60_000, 100),
+                mockEventPublisher
+        );
+        ItemDto itemDto = new ItemDto(7, "Item", "Description", true, null, null, null, null, null);
+        when(mockUserService.findUserById(1)).thenReturn(new UserDto(1, "Apollon", "apollo@yandex.ru"));
+        when(mockItemRepository.save(any(Item.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        itemService.create(itemDto, 1);
+
+        verify(mockItemRepository).save(argThat(item -> item.getId() == null));
+    }
+
     @Test
     void create_ThrowsNotFoundException_WhenItemNotFound() {
         Integer bookerId = 1;
@@ -88,7 +134,11 @@ public class ItemServiceImplTest {
                 mockBookingRepository,
                 mockUserService,
                 mockItemRepository,
-                mockCommentRepository
+                mockCommentRepository,
+                mockEventPublisher,
+                new BookingIntervalIndex(mockBookingRepository, false, 100),
+                new TransactionRetry(TransactionOperations.withoutTransaction(), 1, 0),
+                mockEntityManager
         );
 
         assertThrows(NotFoundException.class, () -> bookingService.create(postBookingDto, bookerId));
@@ -104,7 +154,11 @@ public class ItemServiceImplTest {
                 mockItemRepository,
                 mockUserService,
                 mockCommentRepository,
-                mockBookingService
+                mockBookingService,
+                mockItemSearchIndex,
+                new ItemViewCache(new SimpleMeterRegistry(),
+                        new PrimaryReads(TransactionOperations.withoutTransaction()), true, 60_000, 100),
+                mockEventPublisher
         );
 
         assertThrows(NotFoundException.class, () -> itemService.delete(itemId, ownerId));
@@ -8,16 +8,20 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.BookingService;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.PeriodDto;
 import ru.practicum.shareit.booking.dto.PostBookingDto;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.item.coment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -33,12 +37,14 @@ public class ItemServiceTest {
     private final BookingService bookingService;
     private final UserService userService;
     private final ItemService itemService;
+    private final ItemRepository itemRepository;
+    private final EntityManager entityManager;
     private final User user = new User(30, "First", "first@first30.ru");
     private final UserDto userDto1 = new UserDto(301, "AlexOne", "alexone@alex30.ru");
     private final UserDto userDto2 = new UserDto(302, "AlexTwo", "alextwo@alex30.ru");
-    private final ItemDto itemDto = new ItemDto(301, "Item1", "Description1", true,
+    private final ItemDto itemDto = new ItemDto(null, "Item1", "Description1", true,
             user, null, null, null, null);
-    private final ItemDto itemDto2 = new ItemDto(302, "Item2", "Description2", true,
+    private final ItemDto itemDto2 = new ItemDto(null, "Item2", "Description2", true,
             user, null, null, null, null);
 
     @Test
@@ -130,20 +136,78 @@ public class ItemServiceTest {
         assertEquals(1, listItems.size());
     }
 
+    @Test
+    void test_ItemETagChangesWhenItemIsBooked() {
+        UserDto ownerDto = userService.create(userDto1);
+        UserDto newUserDto = userService.create(userDto2);
+        ItemDto newItemDto = itemService.create(itemDto, ownerDto.getId());
+        String ownerETag = itemService.getItemETag(newItemDto.getId(), ownerDto.getId());
+        String userETag = itemService.getItemETag(newItemDto.getId(), newUserDto.getId());
+        assertEquals(ownerETag, itemService.getItemETag(newItemDto.getId(), ownerDto.getId()));
+        assertNotEquals(ownerETag, userETag);
+
+        bookingService.create(new PostBookingDto(newItemDto.getId(), LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2)), newUserDto.getId());
+
+        assertNotEquals(ownerETag, itemService.getItemETag(newItemDto.getId(), ownerDto.getId()));
+        assertNotEquals(userETag, itemService.getItemETag(newItemDto.getId(), newUserDto.getId()));
+    }
+
+    @Test
+    void test_ItemETagChangesWhenOwnerIsRenamed() {
+        UserDto ownerDto = userService.create(userDto1);
+        ItemDto newItemDto = itemService.create(itemDto, ownerDto.getId());
+        String eTag = itemService.getItemETag(newItemDto.getId(), ownerDto.getId());
+
+        userService.update(new UserDto(null, "AlexRenamed", null), ownerDto.getId());
+
+        assertNotEquals(eTag, itemService.getItemETag(newItemDto.getId(), ownerDto.getId()));
+    }
+
+    @Test
+    void test_IncrementVersionRefreshesLoadedItem() {
+        UserDto ownerDto = userService.create(userDto1);
+        ItemDto newItemDto = itemService.create(itemDto, ownerDto.getId());
+        Item item = itemRepository.findById(newItemDto.getId()).orElseThrow();
+        Integer version = item.getVersion();
+
+        itemRepository.incrementVersion(item.getId());
+
+        assertTrue(entityManager.contains(item));
+        assertEquals(version + 1, item.getVersion());
+        item.setName("Renamed");
+        entityManager.flush();
+    }
+
+    @Test
+    void test_ExceptionWhenGetItemETag_UserNotFound() {
+        UserDto ownerDto = userService.create(userDto1);
+        ItemDto newItemDto = itemService.create(itemDto, ownerDto.getId());
+        assertThrows(NotFoundException.class, () -> itemService.getItemETag(newItemDto.getId(), ownerDto.getId() + 100));
+    }
+
+    @Test
+    void test_ExceptionWhenGetItemById_UserNotFound() {
+        UserDto ownerDto = userService.create(userDto1);
+        ItemDto newItemDto = itemService.create(itemDto, ownerDto.getId());
+        assertThrows(NotFoundException.class, () -> itemService.getItemById(newItemDto.getId(), ownerDto.getId() + 100));
+    }
+
     @Test
     void test_ExceptionWhenCreateComment_UserNotBooker() {
         UserDto ownerDto = userService.create(userDto1);
         UserDto newUserDto = userService.create(userDto2);
+        ItemDto newItemDto = itemService.create(itemDto, ownerDto.getId());
         CommentDto commentDto = new CommentDto(
                 1,
                 "Comment1",
-                ItemMapper.mapToItem(itemDto, UserMapper.mapToUser(ownerDto)),
+                ItemMapper.mapToItem(newItemDto, UserMapper.mapToUser(ownerDto)),
                 newUserDto.getName(),
                 LocalDateTime.now()
         );
         BadRequestException exp = assertThrows(BadRequestException.class,
-                () -> itemService.createComment(commentDto.getText(), itemDto.getId(), newUserDto.getId()));
-        assertEquals("User with id= " + newUserDto.getId() + " did not book item with id= " + itemDto.getId(),
+                () -> itemService.createComment(commentDto.getText(), newItemDto.getId(), newUserDto.getId()));
+        assertEquals("User with id= " + newUserDto.getId() + " did not book item with id= " + newItemDto.getId(),
                 exp.getMessage());
     }
 
@@ -173,5 +237,35 @@ public class ItemServiceTest {
         );
         itemService.createComment(commentDto.getText(), newItemDto.getId(), newUserDto.getId());
         Assertions.assertEquals(1, itemService.getCommentsByItemId(newItemDto.getId()).size());
+        Assertions.assertEquals(1, itemService.getItemsByOwner(ownerDto.getId(), 0, 10)
+                .get(0).getComments().size());
+    }
+
+    @Test
+    void test_GetAvailability_MergesApprovedAndWaitingBookings() {
+        UserDto ownerDto = userService.create(userDto1);
+        UserDto newUserDto = userService.create(userDto2);
+        ItemDto newItemDto = itemService.create(itemDto, ownerDto.getId());
+        LocalDateTime day = LocalDateTime.of(2030, 12, 25, 0, 0, 0);
+        BookingDto approved = bookingService.create(new PostBookingDto(newItemDto.getId(),
+                day.plusDays(1), day.plusDays(3)), newUserDto.getId());
+        bookingService.create(new PostBookingDto(newItemDto.getId(),
+                day.plusDays(2), day.plusDays(4)), newUserDto.getId());
+        BookingDto rejected = bookingService.create(new PostBookingDto(newItemDto.getId(),
+                day.plusDays(5), day.plusDays(6)), newUserDto.getId());
+        bookingService.create(new PostBookingDto(newItemDto.getId(),
+                day.plusDays(7), day.plusDays(10)), newUserDto.getId());
+        bookingService.update(approved.getId(), ownerDto.getId(), true);
+        bookingService.update(rejected.getId(), ownerDto.getId(), false);
+
+        ItemAvailabilityDto availability = itemService.getAvailability(newItemDto.getId(), newUserDto.getId(),
+                day, day.plusDays(8));
+
+        assertEquals(List.of(new PeriodDto(day.plusDays(1), day.plusDays(4)),
+                new PeriodDto(day.plusDays(7), day.plusDays(8))), availability.getBusy());
+        assertEquals(List.of(new PeriodDto(day, day.plusDays(1)),
+                new PeriodDto(day.plusDays(4), day.plusDays(7))), availability.getFree());
+        assertThrows(BadRequestException.class, () -> itemService.getAvailability(newItemDto.getId(),
+                newUserDto.getId(), day.plusDays(8), day));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,165 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserChangedEvent;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.PrimaryReads;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ItemViewCacheTest {
+    private static final long TTL_MILLIS = 60_000;
+
+    private final User owner = new User(1, "Apollon", "apollo@yandex.ru");
+    private MutableClock clock;
+    private ItemViewCache itemViewCache;
+    private AtomicInteger loads;
+    private BookingShortDto nextBooking;
+
+    @BeforeEach
+    void beforeEach() {
+        clock = new MutableClock(Instant.parse("2026-01-01T10:00:00Z"));
+        itemViewCache = new ItemViewCache(new SimpleMeterRegistry(),
+                new PrimaryReads(TransactionOperations.withoutTransaction()), true, TTL_MILLIS, 100, clock);
+        loads = new AtomicInteger();
+        nextBooking = null;
+    }
+
+    @Test
+    void test_RepeatedGetIsServedFromCache() {
+        ItemDto first = get(1);
+        first.setName("Changed by caller");
+        first.getOwner().setName("Changed by caller");
+        ItemDto itemDto = get(1);
+
+        assertEquals(1, loads.get());
+        assertEquals("Item1", itemDto.getName());
+        assertEquals("Apollon", itemDto.getOwner().getName());
+    }
+
+    @Test
+    void test_OwnerSeesBookingsAfterNonOwnerCausedTheMiss() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        nextBooking = new BookingShortDto(1, 2, now.plusHours(1), now.plusHours(2));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ItemDto nonOwnerView = get(1);
+            nonOwnerView.setLastBooking(null);
+            nonOwnerView.setNextBooking(null);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        ItemDto ownerView = get(1);
+
+        assertEquals(1, loads.get());
+        assertEquals(nextBooking, ownerView.getNextBooking());
+    }
+
+    @Test
+    void test_ItemChangedEventDropsOnlyThatItem() {
+        get(1);
+        get(2);
+
+        itemViewCache.onItemChanged(new ItemChangedEvent(1));
+        get(1);
+        get(2);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void test_UserChangedEventDropsAllViews() {
+        get(1);
+        get(2);
+
+        itemViewCache.onUserChanged(new UserChangedEvent(2, true));
+        get(1);
+        get(2);
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void test_ViewIsReloadedWhenNextBookingStarts() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        nextBooking = new BookingShortDto(1, 2, now.plusSeconds(30), now.plusHours(1));
+        get(1);
+        clock.advance(Duration.ofSeconds(20));
+        get(1);
+        assertEquals(1, loads.get());
+
+        clock.advance(Duration.ofSeconds(10));
+        nextBooking = null;
+        ItemDto itemDto = get(1);
+
+        assertEquals(2, loads.get());
+        assertNull(itemDto.getNextBooking());
+    }
+
+    @Test
+    void test_ViewIsReloadedAfterTtl() {
+        get(1);
+        clock.advance(Duration.ofMillis(TTL_MILLIS - 1));
+        get(1);
+        assertEquals(1, loads.get());
+
+        clock.advance(Duration.ofMillis(1));
+        get(1);
+
+        assertEquals(2, loads.get());
+    }
+
+    private ItemDto get(Integer itemId) {
+        return itemViewCache.get(itemId, () -> {
+            loads.incrementAndGet();
+            return new ItemDto(itemId, "Item" + itemId, "Description" + itemId, true,
+                    new User(owner.getId(), owner.getName(), owner.getEmail()), null, null, nextBooking, List.of());
+        });
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
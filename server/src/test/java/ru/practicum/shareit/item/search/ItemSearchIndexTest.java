@@ -0,0 +1,156 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "shareit.search.index.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:item-search"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ItemSearchIndexTest {
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemService itemService;
+    private final ItemRepository itemRepository;
+    private final UserService userService;
+    private final UserRepository userRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final UserDto userDto = new UserDto(401, "Indexer", "indexer@index40.ru");
+
+    @AfterEach
+    void tearDown() {
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+        itemSearchIndex.rebuild();
+    }
+
+    @Test
+    void test_SearchMatchesSqlPath() {
+        UserDto ownerDto = userService.create(userDto);
+        itemService.create(new ItemDto(null, "Дрель", "Простая дрель", true,
+                null, null, null, null, null), ownerDto.getId());
+        itemService.create(new ItemDto(null, "Отвертка", "Аккумуляторная отвертка", true,
+                null, null, null, null, null), ownerDto.getId());
+        itemService.create(new ItemDto(null, "Ящик", "Ящик для дрели", false,
+                null, null, null, null, null), ownerDto.getId());
+        itemService.create(new ItemDto(null, "Дрель ударная", "Не работает", false,
+                null, null, null, null, null), ownerDto.getId());
+        itemService.create(new ItemDto(null, "Saw", "Hand saw", true,
+                null, null, null, null, null), ownerDto.getId());
+
+        assertTrue(itemSearchIndex.isReady());
+        for (String text : List.of("дрел", "ОТВЕР", "ящ", "saw", "a", "работает", "нет такого")) {
+            assertEquals(searchWithSql(text), searchWithIndex(text), "search text: " + text);
+        }
+    }
+
+    @Test
+    void test_IndexFollowsUpdateAndDelete() {
+        UserDto ownerDto = userService.create(userDto);
+        ItemDto itemDto = itemService.create(new ItemDto(null, "Пила", "Пила по дереву", true,
+                null, null, null, null, null), ownerDto.getId());
+
+        assertEquals(List.of(itemDto.getId()), itemSearchIndex.search("пила", 0, 10));
+
+        itemDto.setName("Рубанок");
+        itemDto.setDescription("Рубанок по дереву");
+        itemService.update(itemDto, ownerDto.getId());
+        assertTrue(itemSearchIndex.search("пила", 0, 10).isEmpty());
+        assertEquals(List.of(itemDto.getId()), itemSearchIndex.search("рубан", 0, 10));
+
+        itemService.delete(itemDto.getId(), ownerDto.getId());
+        assertTrue(itemSearchIndex.search("рубан", 0, 10).isEmpty());
+    }
+
+    @Test
+    void test_RolledBackChangesAreNotIndexed() {
+        UserDto ownerDto = userService.create(userDto);
+        ItemDto itemDto = itemService.create(new ItemDto(null, "Стамеска", "Стамеска", true,
+                null, null, null, null, null), ownerDto.getId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            itemService.create(new ItemDto(null, "Стамеска широкая", "Стамеска", true,
+                    null, null, null, null, null), ownerDto.getId());
+            itemService.delete(itemDto.getId(), ownerDto.getId());
+            status.setRollbackOnly();
+        });
+
+        assertEquals(List.of(itemDto.getId()), itemSearchIndex.search("стамеск", 0, 10));
+    }
+
+    @Test
+    void test_SearchPagination() {
+        UserDto ownerDto = userService.create(userDto);
+        for (int i = 0; i < 5; i++) {
+            itemService.create(new ItemDto(null, "Молоток " + i, "Молоток", true,
+                    null, null, null, null, null), ownerDto.getId());
+        }
+
+        List<Integer> all = searchWithIndex("молоток");
+        assertEquals(5, all.size());
+        assertEquals(all.subList(2, 4), itemSearchIndex.search("молоток", 2, 2));
+    }
+
+    @Test
+    void test_DeletedUserItemsLeaveIndex() {
+        UserDto ownerDto = userService.create(userDto);
+        UserDto otherDto = userService.create(new UserDto(402, "Other", "other@index40.ru"));
+        itemService.create(new ItemDto(null, "Лобзик", "Лобзик", true,
+                null, null, null, null, null), ownerDto.getId());
+        ItemDto otherItem = itemService.create(new ItemDto(null, "Лобзик ручной", "Лобзик", true,
+                null, null, null, null, null), otherDto.getId());
+
+        userService.delete(ownerDto.getId());
+
+        assertEquals(List.of(otherItem.getId()), itemSearchIndex.search("лобзик", 0, 10));
+    }
+
+    @Test
+    void test_SearchPagesSkipItemsMissingFromDatabase() {
+        UserDto ownerDto = userService.create(userDto);
+        for (int i = 0; i < 5; i++) {
+            itemService.create(new ItemDto(null, "Кусачки " + i, "Кусачки", true,
+                    null, null, null, null, null), ownerDto.getId());
+        }
+        List<Integer> all = searchWithIndex("кусачки");
+        itemRepository.deleteById(all.get(0));
+
+        List<Integer> page = itemService.getItemsBySearchQuery("кусачки", 2, 2).stream()
+                .map(ItemDto::getId)
+                .collect(toList());
+
+        assertEquals(all.subList(3, 5), page);
+    }
+
+    private List<Integer> searchWithSql(String text) {
+        return itemRepository.getItemsBySearchQuery(text.toLowerCase(), PageRequest.of(0, 100)).stream()
+                .map(Item::getId)
+                .sorted()
+                .collect(toList());
+    }
+
+    private List<Integer> searchWithIndex(String text) {
+        return itemService.getItemsBySearchQuery(text, 0, 100).stream()
+                .map(ItemDto::getId)
+                .collect(toList());
+    }
+}
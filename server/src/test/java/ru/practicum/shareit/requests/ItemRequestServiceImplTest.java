@@ -53,8 +53,6 @@ public class ItemRequestServiceImplTest {
         Integer itemRequestId = 1;
         Integer userId = 1;
 
-        when(mockUserService.findUserById(userId)).thenReturn(user);
-
         when(mockItemRequestRepository.findById(itemRequestId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () ->
@@ -9,13 +9,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionOperations;
 import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.PrimaryReads;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.equalTo;
@@ -29,12 +34,17 @@ import static org.mockito.Mockito.when;
 public class UserServiceImplTest {
     @Mock
     private UserRepository mockUserRepository;
+    @Mock
+    private ApplicationEventPublisher mockEventPublisher;
+    private SimpleMeterRegistry meterRegistry;
     private UserService userService;
     private final UserDto userDto = new UserDto(1, "Apollon", "bestJavaProgrammer@yandex.ru");
 
     @BeforeEach
     void beforeEach() {
-        userService = new UserServiceImpl(mockUserRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        userService = new UserServiceImpl(mockUserRepository, new UserCache(meterRegistry,
+                new PrimaryReads(TransactionOperations.withoutTransaction()), true, 100), mockEventPublisher);
     }
 
     @Test
@@ -76,6 +86,47 @@ public class UserServiceImplTest {
         assertThat(user.getEmail(), equalTo(userDto.getEmail()));
     }
 
+    @Test
+    void test_RepeatedLookupIsServedFromCacheUntilUpdate() {
+        when(mockUserRepository.findById(1))
+                .thenReturn(Optional.of(UserMapper.mapToUser(userDto)));
+        when(mockUserRepository.findByEmail(any())).thenReturn(List.of());
+        when(mockUserRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        userService.findUserById(1);
+        userService.findUserById(1);
+        userService.checkUserExists(1);
+        userService.update(new UserDto(null, "Zeus", "zeus@yandex.ru"), 1);
+        UserDto updated = userService.findUserById(1);
+
+        verify(mockUserRepository, Mockito.times(3)).findById(1);
+        verify(mockEventPublisher).publishEvent(Mockito.<Object>argThat(event ->
+                event instanceof UserChangedEvent && ((UserChangedEvent) event).getUserId() == 1));
+        assertThat(updated.getName(), equalTo("Zeus"));
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count(), equalTo(2.0));
+    }
+
+    @Test
+    void test_CheckUserExistsRunsExistsQueryUnlessUserIsCached() {
+        when(mockUserRepository.existsUserById(1)).thenReturn(true);
+        when(mockUserRepository.findById(1))
+                .thenReturn(Optional.of(UserMapper.mapToUser(userDto)));
+
+        userService.checkUserExists(1);
+        userService.findUserById(1);
+        userService.checkUserExists(1);
+
+        verify(mockUserRepository, Mockito.times(1)).existsUserById(1);
+        verify(mockUserRepository, Mockito.times(1)).findById(1);
+    }
+
+    @Test
+    void test_CheckUserExistsThrowsForUnknownUser() {
+        when(mockUserRepository.existsUserById(2)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> userService.checkUserExists(2));
+    }
+
     @Test
     void create_ThrowsConflictException_WhenInvalidEmail() {
         userDto.setEmail("invalidEmail@@");
@@ -0,0 +1,80 @@
+package ru.practicum.shareit.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReplicaRoutingDataSourceTest {
+    private final ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(Duration.ofSeconds(5),
+            Clock.fixed(Instant.parse("2026-01-01T10:00:00Z"), ZoneOffset.UTC));
+
+    @BeforeEach
+    void beforeEach() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void afterEach() {
+        TransactionSynchronizationManager.clear();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void test_ReadWriteTransactionGoesToPrimary() {
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void test_ReadOnlyTransactionGoesToReplica() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(ReplicaRoutingDataSource.REPLICA, dataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void test_ReadsOfUserWhoJustWroteGoToPrimary() {
+        actAs("1");
+        commitWrite();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+        actAs("2");
+        assertEquals(ReplicaRoutingDataSource.REPLICA, dataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void test_PrimaryReadDoesNotStickUserToPrimary() {
+        actAs("1");
+        TransactionSynchronizationManager.setCurrentTransactionName(PrimaryReads.TRANSACTION_NAME);
+        commitWrite();
+        TransactionSynchronizationManager.setCurrentTransactionName(null);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(ReplicaRoutingDataSource.REPLICA, dataSource.determineCurrentLookupKey());
+    }
+
+    private void commitWrite() {
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    private static void actAs(String userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(ReplicaRoutingDataSource.USER_ID_HEADER, userId);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+}
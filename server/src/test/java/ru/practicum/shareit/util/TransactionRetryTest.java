@@ -0,0 +1,53 @@
+package ru.practicum.shareit.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.practicum.shareit.exception.ConflictException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TransactionRetryTest {
+    private final TransactionRetry transactionRetry =
+            new TransactionRetry(TransactionOperations.withoutTransaction(), 3, 0);
+
+    @Test
+    void test_LostRaceIsRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = transactionRetry.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("Booking was changed");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void test_GivesUpWithConflictAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ConflictException.class, () -> transactionRetry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("Booking was changed");
+        }));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void test_OtherExceptionsAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> transactionRetry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException();
+        }));
+        assertEquals(1, attempts.get());
+    }
+}